@@ -0,0 +1,340 @@
+package com.traxion.admission;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.traxion.json.RawValues;
+
+/**
+ * Control de admisión por client_id y ruta con cubetas de tokens.
+ *
+ * El client_id es el del cliente autenticado por la política de API Manager
+ * ({@code vars.clientId}), no el encabezado que envía el llamante.
+ *
+ * Cada combinación cliente + regla tiene su propia cubeta, así la ráfaga de un
+ * socio (p. ej. snapshots de inventario de WMS BY) no consume la capacidad de
+ * otro ni la de rutas sensibles a latencia como tracking.
+ *
+ * Las reglas se configuran en una sola propiedad, separadas por coma, con el
+ * formato {@code cliente|METODO ruta=tokensPorSegundo/rafaga}. El cliente o la
+ * ruta pueden ser {@code *}; una ruta que termina en {@code *} se compara por
+ * prefijo. Se aplica la primera regla que coincide; si ninguna coincide se usan
+ * los valores por omisión con una cubeta por cliente.
+ *
+ * Una cubeta que ya se recargó por completo está en el mismo estado que una
+ * nueva, así que se descarta: se revisan cada minuto y, si se llega a
+ * {@code maxBuckets}, antes de crear otra. Si aun así no hay lugar, los clientes
+ * nuevos comparten la cubeta {@code other} de la regla. Los contadores de las
+ * cubetas descartadas se suman a {@code other} para que los totales por regla
+ * no bajen.
+ *
+ * <pre>
+ * ratelimit.rules=*|POST /api/oms/articles/inventory=2/10, *|POST /api/tms/tracking=50/100
+ * </pre>
+ *
+ * Uso desde DataWeave:
+ *
+ * <pre>
+ * import java!com::traxion::admission::TokenBuckets
+ * ---
+ * TokenBuckets::tryAcquire(vars.clientId, attributes.method, attributes.requestPath, p('ratelimit.rules'), p('ratelimit.default.rate'), p('ratelimit.default.burst'), p('ratelimit.max.buckets'))
+ * </pre>
+ */
+public class TokenBuckets {
+
+    private static final String ANY = "*";
+    private static final String DEFAULT_RULE = "default";
+    private static final String OTHER = "other";
+
+    private static final double DEFAULT_RATE = 50;
+    private static final double DEFAULT_BURST = 100;
+    private static final int DEFAULT_MAX_BUCKETS = 10000;
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final long FULL_SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final Map<String, Bucket> BUCKETS = new ConcurrentHashMap<>();
+
+    // Contadores de las cubetas descartadas, por regla
+    private static final Map<String, Bucket> RETIRED = new ConcurrentHashMap<>();
+
+    private static final AtomicLong LAST_SWEEP_NANOS = new AtomicLong(System.nanoTime());
+
+    // Última configuración leída; se vuelve a interpretar solo cuando cambia el texto
+    private static volatile Rules rules = new Rules("", Collections.<Rule>emptyList());
+
+    private TokenBuckets() {
+    }
+
+    /**
+     * Intenta tomar un token para la petición.
+     *
+     * @param clientId client_id autenticado; vacío se toma como {@code anonymous}
+     * @param maxBuckets número máximo de cubetas (cliente + regla) en memoria
+     * @return Map con {@code allowed} (Boolean), {@code rule}, {@code limit},
+     *         {@code remaining} y {@code retryAfter} (segundos, solo si se rechaza)
+     */
+    public static Map<String, Object> tryAcquire(String clientId, String method, String path, String ruleSpec,
+                                                 Object defaultRate, Object defaultBurst, Object maxBuckets) {
+        String client = clientId == null || clientId.isEmpty() ? "anonymous" : clientId;
+        String route = (method == null ? "" : method.toUpperCase()) + " " + (path == null ? "" : path);
+
+        Rule rule = rules(ruleSpec).match(client, route);
+        double rate = rule != null ? rule.rate : RawValues.toDouble(defaultRate, DEFAULT_RATE);
+        double burst = rule != null ? rule.burst : RawValues.toDouble(defaultBurst, DEFAULT_BURST);
+        String ruleName = rule != null ? rule.name : DEFAULT_RULE;
+
+        int limit = (int) Math.max(1, RawValues.toLong(maxBuckets, DEFAULT_MAX_BUCKETS));
+        long now = System.nanoTime();
+        sweep(now, SWEEP_INTERVAL_NANOS);
+
+        Bucket bucket;
+        long retryAfterNanos;
+        do {
+            // Si la cubeta se descartó entre la búsqueda y el intento se busca de nuevo
+            bucket = bucket(client, ruleName, limit, now);
+            retryAfterNanos = bucket.tryTake(rate, burst, now);
+        } while (retryAfterNanos < 0L);
+
+        Map<String, Object> result = new HashMap<>(8);
+        result.put("allowed", retryAfterNanos == 0L);
+        result.put("rule", ruleName);
+        result.put("limit", (long) burst);
+        result.put("remaining", bucket.remaining());
+        if (retryAfterNanos > 0L) {
+            result.put("retryAfter", Math.max(1L, (long) Math.ceil(retryAfterNanos / (double) TimeUnit.SECONDS.toNanos(1))));
+        }
+        return result;
+    }
+
+    /**
+     * Contadores de peticiones admitidas y rechazadas por cliente y regla. Las
+     * cubetas descartadas se reportan sumadas en el cliente {@code other}.
+     */
+    public static List<Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        for (Bucket bucket : BUCKETS.values()) {
+            add(stats, bucket.client, bucket);
+        }
+        for (Bucket retired : RETIRED.values()) {
+            add(stats, OTHER, retired);
+        }
+        return new ArrayList<>(stats.values());
+    }
+
+    private static void add(Map<String, Map<String, Object>> stats, String client, Bucket bucket) {
+        Map<String, Object> entry = stats.get(client + "|" + bucket.rule);
+        if (entry == null) {
+            entry = new HashMap<>(8);
+            entry.put("client_id", client);
+            entry.put("rule", bucket.rule);
+            entry.put("allowed", 0L);
+            entry.put("rejected", 0L);
+            stats.put(client + "|" + bucket.rule, entry);
+        }
+        entry.put("allowed", (Long) entry.get("allowed") + bucket.allowed.get());
+        entry.put("rejected", (Long) entry.get("rejected") + bucket.rejected.get());
+    }
+
+    /**
+     * Número de cubetas en memoria, para monitoreo.
+     */
+    public static int size() {
+        return BUCKETS.size();
+    }
+
+    private static Bucket bucket(String client, String rule, int limit, long now) {
+        String key = client + "|" + rule;
+        Bucket bucket = BUCKETS.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (BUCKETS.size() >= limit) {
+            sweep(now, FULL_SWEEP_INTERVAL_NANOS);
+            if (BUCKETS.size() >= limit) {
+                return BUCKETS.computeIfAbsent(OTHER + "|" + rule, other -> new Bucket(OTHER, rule));
+            }
+        }
+        return BUCKETS.computeIfAbsent(key, created -> new Bucket(client, rule));
+    }
+
+    /**
+     * Descarta las cubetas llenas; solo un hilo barre y como máximo una vez por intervalo.
+     */
+    private static void sweep(long now, long intervalNanos) {
+        long last = LAST_SWEEP_NANOS.get();
+        if (now - last < intervalNanos || !LAST_SWEEP_NANOS.compareAndSet(last, now)) {
+            return;
+        }
+        Iterator<Bucket> iterator = BUCKETS.values().iterator();
+        while (iterator.hasNext()) {
+            Bucket bucket = iterator.next();
+            if (!OTHER.equals(bucket.client) && bucket.retire(now)) {
+                iterator.remove();
+                Bucket retired = RETIRED.computeIfAbsent(bucket.rule, rule -> new Bucket(OTHER, rule));
+                retired.allowed.addAndGet(bucket.allowed.get());
+                retired.rejected.addAndGet(bucket.rejected.get());
+            }
+        }
+    }
+
+    private static Rules rules(String spec) {
+        String text = spec == null ? "" : spec.trim();
+        Rules current = rules;
+        if (!current.spec.equals(text)) {
+            current = new Rules(text, parse(text));
+            rules = current;
+        }
+        return current;
+    }
+
+    static List<Rule> parse(String spec) {
+        List<Rule> parsed = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String definition = part.trim();
+            if (definition.isEmpty()) {
+                continue;
+            }
+            int equals = definition.lastIndexOf('=');
+            int pipe = definition.indexOf('|');
+            int slash = definition.indexOf('/', equals);
+            if (equals < 0 || pipe < 0 || pipe > equals || slash < 0) {
+                throw new IllegalArgumentException("Regla de admision invalida: " + definition);
+            }
+            String client = definition.substring(0, pipe).trim();
+            String route = definition.substring(pipe + 1, equals).trim();
+            double rate = Double.parseDouble(definition.substring(equals + 1, slash).trim());
+            double burst = Double.parseDouble(definition.substring(slash + 1).trim());
+            parsed.add(new Rule(client + "|" + route, client, ANY.equals(route) ? ANY : normalize(route), rate, burst));
+        }
+        return parsed;
+    }
+
+    private static String normalize(String route) {
+        int space = route.indexOf(' ');
+        return space < 0 ? route : route.substring(0, space).toUpperCase() + route.substring(space);
+    }
+
+    private static final class Rules {
+        final String spec;
+        final List<Rule> list;
+
+        Rules(String spec, List<Rule> list) {
+            this.spec = spec;
+            this.list = list;
+        }
+
+        Rule match(String client, String route) {
+            for (Rule rule : list) {
+                if (rule.matches(client, route)) {
+                    return rule;
+                }
+            }
+            return null;
+        }
+    }
+
+    static final class Rule {
+        final String name;
+        final String client;
+        final String route;
+        final double rate;
+        final double burst;
+
+        Rule(String name, String client, String route, double rate, double burst) {
+            this.name = name;
+            this.client = client;
+            this.route = route;
+            this.rate = rate;
+            this.burst = Math.max(1, burst);
+        }
+
+        boolean matches(String requestClient, String requestRoute) {
+            if (!ANY.equals(client) && !client.equals(requestClient)) {
+                return false;
+            }
+            if (ANY.equals(route)) {
+                return true;
+            }
+            if (route.endsWith(ANY)) {
+                return requestRoute.startsWith(route.substring(0, route.length() - 1));
+            }
+            return route.equals(requestRoute);
+        }
+    }
+
+    /**
+     * Cubeta de tokens; se recarga de forma perezosa en cada intento.
+     */
+    private static final class Bucket {
+        final String client;
+        final String rule;
+        final AtomicLong allowed = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        private double tokens = -1;
+        private long lastRefillNanos;
+        private double lastRate;
+        private double lastBurst;
+        private boolean retired;
+
+        Bucket(String client, String rule) {
+            this.client = client;
+            this.rule = rule;
+        }
+
+        /**
+         * @return 0 si se tomó el token, los nanosegundos hasta que haya uno disponible,
+         *         o -1 si la cubeta ya se descartó
+         */
+        synchronized long tryTake(double rate, double burst, long now) {
+            if (retired) {
+                return -1L;
+            }
+            lastRate = rate;
+            lastBurst = burst;
+            if (tokens < 0) {
+                tokens = burst;
+            } else {
+                double elapsedSeconds = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+                tokens = Math.min(burst, tokens + elapsedSeconds * rate);
+            }
+            lastRefillNanos = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                allowed.incrementAndGet();
+                return 0L;
+            }
+            rejected.incrementAndGet();
+            if (rate <= 0) {
+                return TimeUnit.SECONDS.toNanos(60);
+            }
+            return (long) Math.ceil((1 - tokens) / rate * TimeUnit.SECONDS.toNanos(1));
+        }
+
+        synchronized long remaining() {
+            return (long) Math.max(0, Math.floor(tokens));
+        }
+
+        /**
+         * Marca la cubeta como descartada si ya se recargó por completo.
+         */
+        synchronized boolean retire(long now) {
+            if (tokens >= 0) {
+                double elapsedSeconds = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+                if (lastRate <= 0 || tokens + elapsedSeconds * lastRate < lastBurst) {
+                    return false;
+                }
+            }
+            retired = true;
+            return true;
+        }
+    }
+}
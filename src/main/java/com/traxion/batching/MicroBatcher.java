@@ -0,0 +1,372 @@
+package com.traxion.batching;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.traxion.json.JsonValues;
+import com.traxion.json.RawValues;
+import com.traxion.resilience.RequestWaits;
+
+/**
+ * Micro-lotes de peticiones por llave (p. ej. actualizaciones de existencias SIAM por
+ * {@code customer_name}).
+ *
+ * La primera petición de una llave abre un lote y queda como líder: espera
+ * {@code windowMillis} o a que el lote junte {@code maxItems} elementos, lo cierra y
+ * hace una sola llamada con todos los elementos. El líder retrasa su propia llamada
+ * mientras la ventana sigue abierta, por eso la ventana no pasa de
+ * {@value #MAX_WINDOW_MILLIS} ms. Si se indica {@code mergeKeys}, los elementos con
+ * los mismos valores en esos campos se combinan y gana el que llegó al último.
+ *
+ * Las peticiones que llegan mientras el lote está abierto agregan sus elementos y
+ * reciben la misma respuesta o el mismo error que el líder. Esperan lo que quede de
+ * la ventana más {@code waitMillis}, que debe cubrir el timeout de la llamada; si se
+ * agota reciben {@code TIMEOUT} y no se sabe si TEP aplicó sus elementos. Cada una
+ * ocupa un lugar de {@link RequestWaits}; sin lugar o con {@code waitMillis} en 0 no
+ * se unen al lote y hacen su propia llamada.
+ *
+ * {@link #join(String, String, Object, Map)} indica al flujo qué hacer:
+ * <ul>
+ * <li>{@code LEADER}: hacer la llamada con {@code items} (JSON) y terminar con
+ * {@link #complete} o {@link #fail}.</li>
+ * <li>{@code COMPLETED}: el líder terminó; la respuesta está en {@code body}.</li>
+ * <li>{@code FAILED}: la llamada del líder falló; la descripción está en {@code error}.</li>
+ * <li>{@code TIMEOUT}: el lote {@code id} no terminó dentro de la espera.</li>
+ * <li>{@code BYPASS}: hacer la llamada sin lote con los elementos de la petición.</li>
+ * </ul>
+ *
+ * Uso desde DataWeave:
+ *
+ * <pre>
+ * import java!com::traxion::batching::MicroBatcher
+ * ---
+ * MicroBatcher::join('siam', vars.customer_name, payload.^raw, {windowMillis: 200, maxItems: 500, waitMillis: 600000, maxWaiters: 64, mergeKeys: 'sku,clave_presupuestal'})
+ * </pre>
+ */
+public class MicroBatcher {
+
+    public static final String LEADER = "LEADER";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+    public static final String TIMEOUT = "TIMEOUT";
+    public static final String BYPASS = "BYPASS";
+
+    private static final long DEFAULT_WINDOW_MILLIS = 200L;
+    private static final int DEFAULT_MAX_ITEMS = 500;
+    private static final long DEFAULT_WAIT_MILLIS = 0L;
+
+    /** Tope de windowMillis, aunque la propiedad pida más. */
+    static final long MAX_WINDOW_MILLIS = 1000L;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final Map<String, Group> GROUPS = new ConcurrentHashMap<>();
+
+    private static final Map<String, Batch> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    private MicroBatcher() {
+    }
+
+    /**
+     * Agrega los elementos de la petición al lote abierto de la llave o abre uno nuevo.
+     * El líder espera a que el lote se cierre; las demás esperan su resultado.
+     *
+     * @param items arreglo JSON de elementos (InputStream, byte[], Reader o String)
+     * @param settings Map con windowMillis, maxItems, waitMillis, maxWaiters y mergeKeys
+     *        (opcionales)
+     * @return Map con {@code status}, {@code id} y, según el estado, {@code items},
+     *         {@code body} o {@code error}
+     */
+    public static Map<String, Object> join(String name, String key, Object items, Map<String, Object> settings) {
+        Group group = GROUPS.computeIfAbsent(name, n -> new Group());
+        long windowMillis = Math.min(MAX_WINDOW_MILLIS,
+                Math.max(0L, RawValues.toLong(RawValues.setting(settings, "windowMillis"), DEFAULT_WINDOW_MILLIS)));
+        int maxItems = (int) Math.max(1, RawValues.toLong(RawValues.setting(settings, "maxItems"), DEFAULT_MAX_ITEMS));
+        long waitMillis = Math.max(0L, RawValues.toLong(RawValues.setting(settings, "waitMillis"), DEFAULT_WAIT_MILLIS));
+        String[] mergeKeys = mergeKeys(RawValues.setting(settings, "mergeKeys"));
+        String batchKey = key == null ? "" : key;
+        List<Object> incoming = readItems(items);
+
+        Batch batch;
+        Batch full = null;
+        boolean leader = false;
+        synchronized (group) {
+            group.requests.incrementAndGet();
+            batch = group.open.get(batchKey);
+            if (batch != null && batch.count + incoming.size() > maxItems) {
+                // No cabe: se cierra el lote actual y esta petición abre otro
+                group.open.remove(batchKey);
+                batch.closed = true;
+                group.fullFlushes.incrementAndGet();
+                full = batch;
+                batch = null;
+            }
+            if (batch != null && (waitMillis == 0L || !RequestWaits.tryEnter(settings))) {
+                // Sin espera posible sus elementos no entran al lote: hace su propia llamada
+                group.bypassed.incrementAndGet();
+                return bypass(batch);
+            }
+            if (batch == null) {
+                batch = new Batch(mergeKeys);
+                leader = true;
+                IN_FLIGHT.put(batch.id, batch);
+                group.batches.incrementAndGet();
+                if (incoming.size() < maxItems) {
+                    group.open.put(batchKey, batch);
+                } else {
+                    batch.closed = true;
+                }
+            }
+            batch.add(incoming);
+            group.items.addAndGet(incoming.size());
+            if (!batch.closed && batch.count >= maxItems) {
+                group.open.remove(batchKey);
+                batch.closed = true;
+                group.fullFlushes.incrementAndGet();
+            }
+        }
+        if (full != null) {
+            full.wakeLeader();
+        }
+        if (!leader) {
+            try {
+                batch.wakeLeaderIfClosed();
+                return awaitResult(group, batch, windowMillis, waitMillis);
+            } finally {
+                RequestWaits.exit();
+            }
+        }
+
+        batch.awaitClose(windowMillis);
+        byte[] batched;
+        synchronized (group) {
+            if (group.open.get(batchKey) == batch) {
+                group.open.remove(batchKey);
+            }
+            batch.closed = true;
+            group.merged.addAndGet(batch.count - batch.items.size());
+        }
+        try {
+            batched = write(batch.items.values());
+        } catch (RuntimeException e) {
+            // Las peticiones del lote no deben quedar esperando una llamada que no se hará
+            fail(batch.id, e.getMessage());
+            throw e;
+        }
+        Map<String, Object> result = new HashMap<>(4);
+        result.put("status", LEADER);
+        result.put("id", batch.id);
+        result.put("items", batched);
+        return result;
+    }
+
+    /**
+     * Publica la respuesta del líder a las peticiones del lote.
+     *
+     * @return la respuesta como bytes, para que el líder también la devuelva
+     */
+    public static byte[] complete(String id, Object body) {
+        byte[] bytes = RawValues.toBytes(body, "respuesta del lote");
+        Batch batch = IN_FLIGHT.remove(id);
+        if (batch != null) {
+            batch.body = bytes;
+            batch.done.countDown();
+        }
+        return bytes;
+    }
+
+    /**
+     * Publica el error de la llamada del líder a las peticiones del lote, que lo
+     * reciben como {@code FAILED}.
+     */
+    public static boolean fail(String id, String error) {
+        Batch batch = IN_FLIGHT.remove(id);
+        if (batch == null) {
+            return false;
+        }
+        batch.error = error == null ? "Error en la llamada del lote" : error;
+        batch.done.countDown();
+        return true;
+    }
+
+    /**
+     * Contadores por nombre de lote para monitoreo.
+     */
+    public static List<Map<String, Object>> stats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (Map.Entry<String, Group> item : GROUPS.entrySet()) {
+            Group group = item.getValue();
+            Map<String, Object> entry = new HashMap<>(16);
+            entry.put("batcher", item.getKey());
+            synchronized (group) {
+                entry.put("open", group.open.size());
+            }
+            long batches = group.batches.get();
+            long requests = group.requests.get();
+            entry.put("requests", requests);
+            entry.put("batches", batches);
+            entry.put("items", group.items.get());
+            entry.put("merged_items", group.merged.get());
+            entry.put("full_flushes", group.fullFlushes.get());
+            entry.put("failures", group.failures.get());
+            entry.put("timed_out", group.timedOut.get());
+            entry.put("bypassed", group.bypassed.get());
+            entry.put("requests_per_batch", batches == 0 ? 0d : (double) requests / batches);
+            stats.add(entry);
+        }
+        return stats;
+    }
+
+    private static Map<String, Object> bypass(Batch batch) {
+        Map<String, Object> result = new HashMap<>(4);
+        result.put("status", BYPASS);
+        result.put("id", batch.id);
+        return result;
+    }
+
+    private static Map<String, Object> awaitResult(Group group, Batch batch, long windowMillis, long waitMillis) {
+        Map<String, Object> result = new HashMap<>(4);
+        result.put("id", batch.id);
+        long deadline = batch.createdNanos + TimeUnit.MILLISECONDS.toNanos(windowMillis + waitMillis);
+        if (!RequestWaits.await(batch.done, deadline - System.nanoTime())) {
+            group.timedOut.incrementAndGet();
+            result.put("status", TIMEOUT);
+            result.put("error", "El lote " + batch.id + " no respondio en " + waitMillis + " ms");
+        } else if (batch.error != null) {
+            group.failures.incrementAndGet();
+            result.put("status", FAILED);
+            result.put("error", batch.error);
+        } else {
+            result.put("status", COMPLETED);
+            result.put("body", batch.body);
+        }
+        return result;
+    }
+
+    private static final class Group {
+        final Map<String, Batch> open = new HashMap<>();
+        final AtomicLong requests = new AtomicLong();
+        final AtomicLong batches = new AtomicLong();
+        final AtomicLong items = new AtomicLong();
+        final AtomicLong merged = new AtomicLong();
+        final AtomicLong fullFlushes = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong timedOut = new AtomicLong();
+        final AtomicLong bypassed = new AtomicLong();
+    }
+
+    private static final class Batch {
+        final String id = UUID.randomUUID().toString();
+        final CountDownLatch done = new CountDownLatch(1);
+        final String[] mergeKeys;
+        // Orden de llegada; con mergeKeys el último elemento reemplaza al anterior en su lugar
+        final LinkedHashMap<Object, Object> items = new LinkedHashMap<>();
+        final long createdNanos = System.nanoTime();
+        int count;
+        volatile boolean closed;
+        volatile byte[] body;
+        volatile String error;
+
+        Batch(String[] mergeKeys) {
+            this.mergeKeys = mergeKeys;
+        }
+
+        void add(List<Object> incoming) {
+            for (Object item : incoming) {
+                items.put(mergeKey(item), item);
+                count++;
+            }
+        }
+
+        synchronized void awaitClose(long windowMillis) {
+            long deadline = createdNanos + TimeUnit.MILLISECONDS.toNanos(windowMillis);
+            try {
+                long remaining;
+                while (!closed && (remaining = deadline - System.nanoTime()) > 0L) {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        synchronized void wakeLeader() {
+            notifyAll();
+        }
+
+        void wakeLeaderIfClosed() {
+            if (closed) {
+                wakeLeader();
+            }
+        }
+
+        private Object mergeKey(Object item) {
+            if (mergeKeys.length == 0 || !(item instanceof Map)) {
+                return new Object();
+            }
+            List<Object> values = new ArrayList<>(mergeKeys.length);
+            for (String field : mergeKeys) {
+                values.add(((Map<?, ?>) item).get(field));
+            }
+            return values;
+        }
+    }
+
+    private static String[] mergeKeys(Object value) {
+        if (value == null || value.toString().trim().isEmpty()) {
+            return new String[0];
+        }
+        String[] keys = value.toString().split(",");
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = keys[i].trim();
+        }
+        return keys;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> readItems(Object source) {
+        try (JsonParser parser = JsonValues.parser(source)) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return new ArrayList<>();
+            }
+            Object value = JsonValues.read(parser);
+            if (value instanceof List) {
+                return (List<Object>) value;
+            }
+            List<Object> single = new ArrayList<>(1);
+            single.add(value);
+            return single;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error leyendo elementos del lote", e);
+        }
+    }
+
+    private static byte[] write(Iterable<Object> items) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(BUFFER_SIZE);
+        try (JsonGenerator generator = JsonValues.FACTORY.createGenerator(out)) {
+            generator.writeStartArray();
+            for (Object item : items) {
+                JsonValues.write(generator, item);
+            }
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error escribiendo elementos del lote", e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,486 @@
+package com.traxion.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.traxion.json.JsonValues;
+import com.traxion.json.RawValues;
+
+/**
+ * Caché en disco local de documentos de carta porte terminados.
+ *
+ * Los documentos se guardan por contenido: el archivo se nombra con el SHA-256 de
+ * sus bytes en {@code objects/}, y cada llave (identifier + date) apunta a su hash
+ * con un archivo pequeño en {@code keys/}. Dos llaves con el mismo documento
+ * comparten el archivo. El total de bytes se limita a {@code maxBytes}; al
+ * rebasarlo se borran los documentos usados hace más tiempo. El índice se
+ * reconstruye desde el directorio la primera vez que se usa, así la caché
+ * sobrevive reinicios del worker.
+ *
+ * Solo se guardan documentos completos: respuesta 200, JSON bien formado de principio
+ * a fin y sin campo {@code error} en la raíz. Sin {@code date} la llave no identifica
+ * un documento fijo, así que no se busca ni se guarda. Cada llave vence
+ * {@code ttlSeconds} después de guardarse (la fecha de modificación del archivo de
+ * la llave); al vencer se borra, y el documento también si ninguna otra llave lo usa.
+ *
+ * Los documentos en caché se entregan como un InputStream sobre el archivo mapeado
+ * en memoria, sin copiarlo al heap; Mule lo escribe directamente en la respuesta.
+ *
+ * Uso desde DataWeave:
+ *
+ * <pre>
+ * import java!com::traxion::cache::DocumentDiskCache
+ * ---
+ * DocumentDiskCache::lookup(p('carta.porte.document.cache.dir'), vars.loadNumber, vars.date,
+ *     p('carta.porte.document.cache.ttl.seconds'))
+ * </pre>
+ */
+public class DocumentDiskCache {
+
+    private static final Logger LOGGER = LogManager.getLogger(DocumentDiskCache.class);
+
+    private static final String OBJECTS = "objects";
+    private static final String KEYS = "keys";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final long DEFAULT_MAX_BYTES = 512L * 1024 * 1024;
+    private static final long DEFAULT_TTL_SECONDS = 24L * 60 * 60;
+    private static final int STATUS_OK = 200;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final Map<String, Store> STORES = new ConcurrentHashMap<>();
+
+    private DocumentDiskCache() {
+    }
+
+    /**
+     * Busca el documento de la llave.
+     *
+     * @param ttlSeconds vigencia de la llave en segundos
+     * @return Map con {@code body} (InputStream sobre el archivo mapeado), {@code hash} y
+     *         {@code size}; null si no está en caché, ya venció o falta identifier o date
+     */
+    public static Map<String, Object> lookup(String dir, String identifier, String date, Object ttlSeconds) {
+        Store store = store(dir);
+        if (isBlank(identifier) || isBlank(date)) {
+            store.misses.incrementAndGet();
+            return null;
+        }
+        String hash = store.hashFor(key(identifier, date), ttlMillis(ttlSeconds));
+        if (hash == null) {
+            store.misses.incrementAndGet();
+            return null;
+        }
+        Path file = store.objectPath(hash);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            // El mapeo sigue siendo válido después de cerrar el canal
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            store.hits.incrementAndGet();
+            Map<String, Object> result = new HashMap<>(4);
+            result.put("body", new MappedInputStream(mapped));
+            result.put("hash", hash);
+            result.put("size", size);
+            return result;
+        } catch (NoSuchFileException e) {
+            store.forget(hash);
+            store.misses.incrementAndGet();
+            return null;
+        } catch (IOException e) {
+            LOGGER.warn("No se pudo leer el documento en cache {}", file, e);
+            store.misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Guarda el documento de la llave si está completo; si no, solo lo regresa.
+     *
+     * @param body documento (InputStream, byte[] o String)
+     * @param status código HTTP de la respuesta del documento
+     * @param maxBytes tamaño máximo de la caché en bytes
+     * @return Map con {@code body} (el documento, para continuar el flujo), {@code hash},
+     *         {@code size} y {@code stored}
+     */
+    public static Map<String, Object> store(String dir, String identifier, String date, Object body, Object status,
+            Object maxBytes) {
+        Store store = store(dir);
+        store.maxBytes = Math.max(0L, RawValues.toLong(maxBytes, DEFAULT_MAX_BYTES));
+        byte[] bytes = RawValues.toBytes(body, "documento para cache");
+        String hash = hex(sha256(bytes));
+        String rejected = rejection(identifier, date, RawValues.toInt(status, 0), bytes);
+        boolean stored = false;
+        if (rejected != null) {
+            store.rejected.incrementAndGet();
+            LOGGER.info("Documento {} {} no se guarda en cache: {}", identifier, date, rejected);
+        } else {
+            try {
+                store.put(key(identifier, date), hash, bytes);
+                stored = true;
+            } catch (IOException e) {
+                // Si el disco falla se responde igual; solo se pierde la caché
+                LOGGER.warn("No se pudo guardar el documento en cache {}", hash, e);
+            }
+        }
+        Map<String, Object> result = new HashMap<>(8);
+        result.put("body", bytes);
+        result.put("hash", hash);
+        result.put("size", (long) bytes.length);
+        result.put("stored", stored);
+        return result;
+    }
+
+    /**
+     * @return por qué el documento no se puede guardar, o null si está completo
+     */
+    static String rejection(String identifier, String date, int status, byte[] bytes) {
+        if (isBlank(identifier)) {
+            return "sin identifier";
+        }
+        if (isBlank(date)) {
+            return "sin date";
+        }
+        if (status != STATUS_OK) {
+            return "status " + status;
+        }
+        if (bytes.length == 0) {
+            return "documento vacio";
+        }
+        try (JsonParser parser = JsonValues.parser(bytes)) {
+            JsonToken first = parser.nextToken();
+            if (first == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    if ("error".equals(field) || "errors".equals(field)) {
+                        return "respuesta de error";
+                    }
+                    parser.nextToken();
+                    parser.skipChildren();
+                }
+            } else if (first == JsonToken.START_ARRAY) {
+                parser.skipChildren();
+            } else {
+                return "no es un documento JSON";
+            }
+            if (parser.nextToken() != null) {
+                return "contenido despues del documento";
+            }
+        } catch (IOException e) {
+            // Jackson reporta el JSON truncado o mal formado como JsonParseException
+            return "JSON incompleto: " + e.getMessage();
+        }
+        return null;
+    }
+
+    /**
+     * Estadísticas por directorio para monitoreo.
+     */
+    public static List<Map<String, Object>> stats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (Map.Entry<String, Store> item : STORES.entrySet()) {
+            Store store = item.getValue();
+            Map<String, Object> entry = new HashMap<>(8);
+            entry.put("dir", item.getKey());
+            synchronized (store) {
+                entry.put("keys", store.keys.size());
+                entry.put("documents", store.objects.size());
+                entry.put("bytes", store.totalBytes);
+                entry.put("max_bytes", store.maxBytes);
+            }
+            entry.put("hits", store.hits.get());
+            entry.put("misses", store.misses.get());
+            entry.put("evictions", store.evictions.get());
+            entry.put("expirations", store.expirations.get());
+            entry.put("rejected", store.rejected.get());
+            stats.add(entry);
+        }
+        return stats;
+    }
+
+    private static Store store(String dir) {
+        return STORES.computeIfAbsent(dir, path -> {
+            Store store = new Store(Paths.get(path));
+            store.load();
+            return store;
+        });
+    }
+
+    private static String key(String identifier, String date) {
+        return identifier + "|" + date;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private static long ttlMillis(Object ttlSeconds) {
+        return Math.max(0L, RawValues.toLong(ttlSeconds, DEFAULT_TTL_SECONDS)) * 1000L;
+    }
+
+    private static final class Store {
+        final Path root;
+        final Path objectsDir;
+        final Path keysDir;
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong evictions = new AtomicLong();
+        final AtomicLong expirations = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        volatile long maxBytes = DEFAULT_MAX_BYTES;
+
+        // llave -> hash del documento
+        final Map<String, String> keys = new HashMap<>();
+        // llave -> momento en que se guardó, en milisegundos
+        final Map<String, Long> storedAt = new HashMap<>();
+        // hash -> tamaño, en orden de acceso para desalojar el usado hace más tiempo
+        final LinkedHashMap<String, Long> objects = new LinkedHashMap<>(16, 0.75f, true);
+        long totalBytes;
+
+        Store(Path root) {
+            this.root = root;
+            this.objectsDir = root.resolve(OBJECTS);
+            this.keysDir = root.resolve(KEYS);
+        }
+
+        synchronized String hashFor(String key, long ttlMillis) {
+            String hash = keys.get(key);
+            if (hash == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() - storedAt.get(key) >= ttlMillis) {
+                expire(key, hash);
+                return null;
+            }
+            objects.get(hash);
+            return hash;
+        }
+
+        synchronized void put(String key, String hash, byte[] bytes) throws IOException {
+            if (!objects.containsKey(hash)) {
+                Path target = objectPath(hash);
+                Files.createDirectories(target.getParent());
+                writeAtomically(target, bytes);
+                objects.put(hash, (long) bytes.length);
+                totalBytes += bytes.length;
+            } else {
+                objects.get(hash);
+            }
+            keys.put(key, hash);
+            storedAt.put(key, System.currentTimeMillis());
+            Files.createDirectories(keysDir);
+            writeAtomically(keyPath(key), (key + "\n" + hash).getBytes(StandardCharsets.UTF_8));
+            evict(hash);
+        }
+
+        synchronized void forget(String hash) {
+            Long size = objects.remove(hash);
+            if (size != null) {
+                totalBytes -= size;
+            }
+            removeKeys(hash);
+        }
+
+        /**
+         * Borra la llave vencida, y el documento si ninguna otra llave apunta a él.
+         */
+        private void expire(String key, String hash) {
+            keys.remove(key);
+            storedAt.remove(key);
+            deleteQuietly(keyPath(key));
+            expirations.incrementAndGet();
+            if (!keys.containsValue(hash)) {
+                Long size = objects.remove(hash);
+                if (size != null) {
+                    totalBytes -= size;
+                }
+                deleteQuietly(objectPath(hash));
+            }
+        }
+
+        private void evict(String keep) {
+            Iterator<Map.Entry<String, Long>> iterator = objects.entrySet().iterator();
+            while (totalBytes > maxBytes && iterator.hasNext()) {
+                Map.Entry<String, Long> eldest = iterator.next();
+                if (eldest.getKey().equals(keep)) {
+                    continue;
+                }
+                iterator.remove();
+                totalBytes -= eldest.getValue();
+                evictions.incrementAndGet();
+                removeKeys(eldest.getKey());
+                deleteQuietly(objectPath(eldest.getKey()));
+            }
+        }
+
+        private void removeKeys(String hash) {
+            Iterator<Map.Entry<String, String>> iterator = keys.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, String> entry = iterator.next();
+                if (entry.getValue().equals(hash)) {
+                    iterator.remove();
+                    storedAt.remove(entry.getKey());
+                    deleteQuietly(keyPath(entry.getKey()));
+                }
+            }
+        }
+
+        /**
+         * Reconstruye el índice desde disco; el orden LRU inicial es el de última modificación
+         * y el momento en que se guardó cada llave es la fecha de modificación de su archivo.
+         */
+        synchronized void load() {
+            List<Object[]> found = new ArrayList<>();
+            if (Files.isDirectory(objectsDir)) {
+                try (DirectoryStream<Path> prefixes = Files.newDirectoryStream(objectsDir)) {
+                    for (Path prefix : prefixes) {
+                        try (DirectoryStream<Path> files = Files.newDirectoryStream(prefix)) {
+                            for (Path file : files) {
+                                String name = file.getFileName().toString();
+                                if (name.endsWith(TEMP_SUFFIX)) {
+                                    deleteQuietly(file);
+                                    continue;
+                                }
+                                found.add(new Object[] {name, Files.size(file), Files.getLastModifiedTime(file).toMillis()});
+                            }
+                        }
+                    }
+                } catch (IOException e) {
+                    LOGGER.warn("No se pudo leer el directorio de cache {}", objectsDir, e);
+                }
+            }
+            found.sort((a, b) -> Long.compare((Long) a[2], (Long) b[2]));
+            for (Object[] object : found) {
+                objects.put((String) object[0], (Long) object[1]);
+                totalBytes += (Long) object[1];
+            }
+            if (Files.isDirectory(keysDir)) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(keysDir)) {
+                    for (Path file : files) {
+                        String[] lines = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).split("\n", 2);
+                        if (lines.length == 2 && objects.containsKey(lines[1])) {
+                            keys.put(lines[0], lines[1]);
+                            storedAt.put(lines[0], Files.getLastModifiedTime(file).toMillis());
+                        } else {
+                            deleteQuietly(file);
+                        }
+                    }
+                } catch (IOException e) {
+                    LOGGER.warn("No se pudo leer el directorio de cache {}", keysDir, e);
+                }
+            }
+            LOGGER.info("Cache de documentos {}: {} documentos, {} bytes", root, objects.size(), totalBytes);
+        }
+
+        Path objectPath(String hash) {
+            return objectsDir.resolve(hash.substring(0, 2)).resolve(hash);
+        }
+
+        Path keyPath(String key) {
+            return keysDir.resolve(hex(sha256(key.getBytes(StandardCharsets.UTF_8))));
+        }
+    }
+
+    private static void writeAtomically(Path target, byte[] bytes) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            out.write(bytes);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.warn("No se pudo borrar {}", file, e);
+        }
+    }
+
+    /**
+     * InputStream sobre un archivo mapeado en memoria.
+     */
+    private static final class MappedInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        MappedInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+}
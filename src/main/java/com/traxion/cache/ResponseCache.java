@@ -0,0 +1,280 @@
+package com.traxion.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.traxion.json.RawValues;
+import com.traxion.resilience.RequestWaits;
+
+/**
+ * Caché en memoria de respuestas de consulta (p. ej. detalle ISSSTE de process-pharma-api).
+ *
+ * Cada caché tiene nombre propio, un máximo de entradas con desalojo LRU y TTL por
+ * entrada. Vencido el TTL la entrada se sigue sirviendo durante
+ * {@code staleSeconds} mientras una sola petición la refresca en segundo plano
+ * (stale-while-revalidate). Las peticiones simultáneas por la misma llave sin
+ * entrada se agrupan: solo una llama al servicio y las demás esperan su resultado
+ * hasta {@code waitMillis}, que se configura cerca del timeout del servicio detrás de
+ * la caché para que la carga termine (guardada o abandonada) antes de agotarse. Si
+ * la carga se abandona, una de las que esperaban la vuelve a intentar. Cada espera
+ * ocupa un lugar de {@link RequestWaits}; sin lugar, o con {@code waitMillis} en 0,
+ * se llama al servicio de inmediato (BYPASS).
+ *
+ * {@link #lookup(String, String, Map)} indica al flujo qué hacer:
+ * <ul>
+ * <li>{@code HIT}: respuesta vigente en {@code body}.</li>
+ * <li>{@code STALE}: respuesta vencida en {@code body}; otra petición ya la está refrescando.</li>
+ * <li>{@code REFRESH}: respuesta vencida en {@code body}; esta petición debe refrescarla
+ * en segundo plano y terminar con {@link #store} o {@link #abandon}.</li>
+ * <li>{@code LOAD}: no hay respuesta; esta petición debe llamar al servicio y terminar
+ * con {@link #store} o {@link #abandon}.</li>
+ * <li>{@code BYPASS}: hay una carga en curso y se agotó la espera o no hubo lugar
+ * para esperar; se llama al servicio sin agrupar.</li>
+ * </ul>
+ *
+ * Uso desde DataWeave:
+ *
+ * <pre>
+ * import java!com::traxion::cache::ResponseCache
+ * ---
+ * ResponseCache::lookup('issste-detail', vars.customer_name, {ttlSeconds: 60, staleSeconds: 300, maxEntries: 500, waitMillis: 600000, maxWaiters: 64})
+ * </pre>
+ */
+public class ResponseCache {
+
+    public static final String HIT = "HIT";
+    public static final String STALE = "STALE";
+    public static final String REFRESH = "REFRESH";
+    public static final String LOAD = "LOAD";
+    public static final String BYPASS = "BYPASS";
+
+    private static final long DEFAULT_TTL_SECONDS = 60L;
+    private static final long DEFAULT_STALE_SECONDS = 0L;
+    private static final int DEFAULT_MAX_ENTRIES = 1000;
+    private static final long DEFAULT_WAIT_MILLIS = 30000L;
+
+    private static final Map<String, Region> REGIONS = new ConcurrentHashMap<>();
+
+    private ResponseCache() {
+    }
+
+    /**
+     * Busca la respuesta en caché o registra a esta petición como la que debe cargarla.
+     *
+     * @param settings Map con ttlSeconds, staleSeconds, maxEntries, waitMillis y maxWaiters (opcionales)
+     * @return Map con {@code status} y, si hay respuesta, {@code body} (bytes) y {@code age} (segundos)
+     */
+    public static Map<String, Object> lookup(String cache, String key, Map<String, Object> settings) {
+        Region region = region(cache);
+        region.configure(settings);
+        long waitNanos = TimeUnit.MILLISECONDS.toNanos(region.waitMillis);
+        long deadline = System.nanoTime() + waitNanos;
+        boolean waiting = false;
+        try {
+            while (true) {
+                Load load;
+                synchronized (region) {
+                    long now = System.nanoTime();
+                    CachedBody entry = region.entries.get(key);
+                    if (entry != null) {
+                        if (now - entry.freshUntilNanos < 0) {
+                            // Tras esperar, la entrada es la que guardó la carga
+                            (waiting ? region.coalesced : region.hits).incrementAndGet();
+                            return result(HIT, entry, now);
+                        }
+                        if (now - entry.staleUntilNanos < 0) {
+                            region.stale.incrementAndGet();
+                            if (region.loads.containsKey(key)) {
+                                return result(STALE, entry, now);
+                            }
+                            region.loads.put(key, new Load());
+                            region.refreshes.incrementAndGet();
+                            return result(REFRESH, entry, now);
+                        }
+                        region.entries.remove(key);
+                    }
+                    load = region.loads.get(key);
+                    if (load == null) {
+                        region.loads.put(key, new Load());
+                        region.misses.incrementAndGet();
+                        return result(LOAD, null, now);
+                    }
+                }
+                if (!waiting) {
+                    if (waitNanos == 0L || !RequestWaits.tryEnter(settings)) {
+                        region.bypasses.incrementAndGet();
+                        return result(BYPASS, null, System.nanoTime());
+                    }
+                    waiting = true;
+                }
+                if (!RequestWaits.await(load.done, deadline - System.nanoTime())) {
+                    region.bypasses.incrementAndGet();
+                    return result(BYPASS, null, System.nanoTime());
+                }
+                // La carga terminó (guardada o abandonada): se vuelve a consultar
+            }
+        } finally {
+            if (waiting) {
+                RequestWaits.exit();
+            }
+        }
+    }
+
+    /**
+     * Guarda la respuesta y libera a las peticiones que esperaban la carga.
+     */
+    public static boolean store(String cache, String key, Object body) {
+        Region region = region(cache);
+        byte[] bytes = RawValues.toBytes(body, "respuesta para cache");
+        Load load;
+        synchronized (region) {
+            long now = System.nanoTime();
+            region.entries.put(key, new CachedBody(bytes, now, now + region.ttlNanos, now + region.ttlNanos + region.staleNanos));
+            load = region.loads.remove(key);
+        }
+        if (load != null) {
+            load.done.countDown();
+        }
+        return true;
+    }
+
+    /**
+     * Libera la carga sin guardar respuesta (la llamada al servicio falló).
+     */
+    public static boolean abandon(String cache, String key) {
+        Region region = region(cache);
+        Load load;
+        synchronized (region) {
+            load = region.loads.remove(key);
+        }
+        if (load == null) {
+            return false;
+        }
+        load.done.countDown();
+        return true;
+    }
+
+    /**
+     * Elimina una llave, o toda la caché si {@code key} es null.
+     *
+     * @return número de entradas eliminadas
+     */
+    public static int invalidate(String cache, String key) {
+        Region region = REGIONS.get(cache);
+        if (region == null) {
+            return 0;
+        }
+        synchronized (region) {
+            if (key == null) {
+                int size = region.entries.size();
+                region.entries.clear();
+                return size;
+            }
+            return region.entries.remove(key) == null ? 0 : 1;
+        }
+    }
+
+    /**
+     * Estadísticas por caché para monitoreo.
+     */
+    public static List<Map<String, Object>> stats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (Map.Entry<String, Region> item : REGIONS.entrySet()) {
+            Region region = item.getValue();
+            Map<String, Object> entry = new HashMap<>(16);
+            entry.put("cache", item.getKey());
+            synchronized (region) {
+                entry.put("size", region.entries.size());
+                entry.put("max_entries", region.maxEntries);
+                entry.put("loading", region.loads.size());
+            }
+            entry.put("hits", region.hits.get());
+            entry.put("stale_hits", region.stale.get());
+            entry.put("misses", region.misses.get());
+            entry.put("refreshes", region.refreshes.get());
+            entry.put("coalesced", region.coalesced.get());
+            entry.put("bypasses", region.bypasses.get());
+            entry.put("evictions", region.evictions.get());
+            stats.add(entry);
+        }
+        return stats;
+    }
+
+    private static Region region(String cache) {
+        return REGIONS.computeIfAbsent(cache, name -> new Region());
+    }
+
+    private static Map<String, Object> result(String status, CachedBody entry, long now) {
+        Map<String, Object> result = new HashMap<>(4);
+        result.put("status", status);
+        if (entry != null) {
+            result.put("body", entry.body);
+            result.put("age", TimeUnit.NANOSECONDS.toSeconds(now - entry.storedAtNanos));
+        }
+        return result;
+    }
+
+    private static final class Region {
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong stale = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong refreshes = new AtomicLong();
+        final AtomicLong coalesced = new AtomicLong();
+        final AtomicLong bypasses = new AtomicLong();
+        final AtomicLong evictions = new AtomicLong();
+        final Map<String, Load> loads = new HashMap<>();
+        volatile long ttlNanos = TimeUnit.SECONDS.toNanos(DEFAULT_TTL_SECONDS);
+        volatile long staleNanos = TimeUnit.SECONDS.toNanos(DEFAULT_STALE_SECONDS);
+        volatile long waitMillis = DEFAULT_WAIT_MILLIS;
+        volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+
+        // Orden de acceso para desalojar la entrada usada hace más tiempo
+        final LinkedHashMap<String, CachedBody> entries = new LinkedHashMap<String, CachedBody>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedBody> eldest) {
+                if (size() > maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        void configure(Map<String, Object> settings) {
+            if (settings == null) {
+                return;
+            }
+            ttlNanos = TimeUnit.SECONDS.toNanos(RawValues.toLong(settings.get("ttlSeconds"), DEFAULT_TTL_SECONDS));
+            staleNanos = TimeUnit.SECONDS.toNanos(RawValues.toLong(settings.get("staleSeconds"), DEFAULT_STALE_SECONDS));
+            waitMillis = Math.max(0L, RawValues.toLong(settings.get("waitMillis"), DEFAULT_WAIT_MILLIS));
+            maxEntries = (int) Math.max(1, RawValues.toLong(settings.get("maxEntries"), DEFAULT_MAX_ENTRIES));
+        }
+    }
+
+    private static final class CachedBody {
+        final byte[] body;
+        final long storedAtNanos;
+        final long freshUntilNanos;
+        final long staleUntilNanos;
+
+        CachedBody(byte[] body, long storedAtNanos, long freshUntilNanos, long staleUntilNanos) {
+            this.body = body;
+            this.storedAtNanos = storedAtNanos;
+            this.freshUntilNanos = freshUntilNanos;
+            this.staleUntilNanos = staleUntilNanos;
+        }
+    }
+
+    private static final class Load {
+        final CountDownLatch done = new CountDownLatch(1);
+    }
+}
@@ -5,8 +5,8 @@ import io.grpc.ManagedChannelBuilder;
 import io.grpc.StatusRuntimeException;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
-import java.util.logging.Logger;
-import java.util.logging.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 /**
  * Cliente gRPC simplificado para el servicio RecursoConfiable
@@ -15,7 +15,7 @@ import java.util.logging.Level;
  */
 public class RecursoConfiableClient {
     
-    private static final Logger logger = Logger.getLogger(RecursoConfiableClient.class.getName());
+    private static final Logger logger = LogManager.getLogger(RecursoConfiableClient.class);
     
     // Instancia singleton
     private static volatile RecursoConfiableClient instance;
@@ -46,7 +46,7 @@ public class RecursoConfiableClient {
                 .maxInboundMessageSize(4 * 1024 * 1024) // 4MB max message size
                 .build();
         
-        logger.info("Cliente gRPC inicializado para " + host + ":" + port);
+        logger.info("Cliente gRPC inicializado para {}:{}", host, port);
     }
     
     /**
@@ -75,9 +75,9 @@ public class RecursoConfiableClient {
      * Implementación que realiza llamada real al servicio gRPC
      */
     public String registerPlate(String plate, String loadId, String loadNumber) {
-        logger.info("=== INICIO registerPlate ===");
-        logger.info("Registrando placa: " + plate + ", LoadId: " + loadId + ", LoadNumber: " + loadNumber);
-        logger.info("Estado del canal gRPC: " + channel.getState(false));
+        logger.debug("=== INICIO registerPlate ===");
+        logger.info("Registrando placa: {}, LoadId: {}, LoadNumber: {}", plate, loadId, loadNumber);
+        logger.debug("Estado del canal gRPC: {}", () -> channel.getState(false));
         
         try {
             // Crear el stub gRPC usando las clases generadas
@@ -91,31 +91,30 @@ public class RecursoConfiableClient {
                     .setLoadNumber(loadNumber)
                     .build();
             
-            logger.info("Enviando request gRPC al webhook: " + request.toString());
+            logger.debug("Enviando request gRPC al webhook: {}", () -> request);
             
             // Realizar la llamada gRPC real al webhook
             RecursoConfiable.RegisterReply reply = blockingStub.registerPlate(request);
             
             // Obtener la respuesta del webhook
             String webhookResponse = reply.getMessage();
-            logger.info("Respuesta recibida del webhook: " + webhookResponse);
+            logger.info("Respuesta recibida del webhook: {}", webhookResponse);
             
             // Construir respuesta estructurada con la respuesta real del webhook
             String response = "gRPC_SUCCESS: " + webhookResponse + " - Placa " + plate + " registrada en webhook.traxporta.com:443 - LoadId: " + loadId;
-            logger.info("Respuesta procesada del servicio gRPC: " + response);
-            logger.info("=== FIN registerPlate - RETORNANDO: " + response + " ===");
+            logger.debug("=== FIN registerPlate - RETORNANDO: {} ===", response);
             
             return response;
             
         } catch (StatusRuntimeException e) {
-            logger.log(Level.SEVERE, "Error gRPC: " + e.getStatus() + " - " + e.getMessage(), e);
+            logger.error("Error gRPC: {} - {}", e.getStatus(), e.getMessage(), e);
             String errorResponse = "gRPC_ERROR: " + e.getStatus() + " - " + e.getMessage();
-            logger.info("=== FIN registerPlate - RETORNANDO ERROR: " + errorResponse + " ===");
+            logger.debug("=== FIN registerPlate - RETORNANDO ERROR: {} ===", errorResponse);
             return errorResponse;
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error al enviar placa al servicio gRPC: " + e.getMessage(), e);
+            logger.error("Error al enviar placa al servicio gRPC: {}", e.getMessage(), e);
             String errorResponse = "gRPC_EXCEPTION: " + e.getMessage();
-            logger.info("=== FIN registerPlate - RETORNANDO EXCEPTION: " + errorResponse + " ===");
+            logger.debug("=== FIN registerPlate - RETORNANDO EXCEPTION: {} ===", errorResponse);
             return errorResponse;
         }
     }
@@ -141,15 +140,15 @@ public class RecursoConfiableClient {
                     logger.info("Cerrando canal gRPC global...");
                     instance.channel.shutdown();
                     if (!instance.channel.awaitTermination(5, TimeUnit.SECONDS)) {
-                        logger.warning("Canal gRPC no se cerró en 5 segundos, forzando cierre...");
+                        logger.warn("Canal gRPC no se cerró en 5 segundos, forzando cierre...");
                         instance.channel.shutdownNow();
                         if (!instance.channel.awaitTermination(5, TimeUnit.SECONDS)) {
-                            logger.severe("Canal gRPC no pudo cerrarse completamente");
+                            logger.error("Canal gRPC no pudo cerrarse completamente");
                         }
                     }
                     logger.info("Canal gRPC cerrado exitosamente");
                 } catch (InterruptedException e) {
-                    logger.log(Level.WARNING, "Interrupción durante el cierre del canal gRPC", e);
+                    logger.warn("Interrupción durante el cierre del canal gRPC", e);
                     instance.channel.shutdownNow();
                     Thread.currentThread().interrupt();
                 } finally {
@@ -180,7 +179,7 @@ public class RecursoConfiableClient {
      */
     public String getChannelInfo() {
         String info = "gRPC Channel - Host: " + host + ", Port: " + port + ", State: " + channel.getState(false);
-        logger.info("=== getChannelInfo RETORNANDO: " + info + " ===");
+        logger.debug("=== getChannelInfo RETORNANDO: {} ===", info);
         return info;
     }
 }
\ No newline at end of file
@@ -1,8 +1,8 @@
 package com.traxion.grpc;
 
 import java.util.concurrent.TimeUnit;
-import java.util.logging.Logger;
-import java.util.logging.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 /**
  * Cliente gRPC simplificado para debugging
@@ -10,7 +10,7 @@ import java.util.logging.Level;
  */
 public class SimpleGrpcClient {
     
-    private static final Logger logger = Logger.getLogger(SimpleGrpcClient.class.getName());
+    private static final Logger logger = LogManager.getLogger(SimpleGrpcClient.class);
     
     private String status = "DISCONNECTED";
     private boolean isConnected = false;
@@ -44,7 +44,7 @@ public class SimpleGrpcClient {
             logger.info("=== SimpleGrpcClient: Conexión simulada establecida exitosamente ===");
             
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "=== SimpleGrpcClient: Error en inicialización ===", e);
+            logger.error("=== SimpleGrpcClient: Error en inicialización ===", e);
             this.isConnected = false;
             this.status = "ERROR: " + e.getMessage();
         }
@@ -54,26 +54,26 @@ public class SimpleGrpcClient {
      * Registra una placa en el sistema gRPC simulado
      */
     public String registerPlate(String plate) {
-        logger.info("=== SimpleGrpcClient: registerPlate() llamado con placa: " + plate + " ===");
+        logger.info("=== SimpleGrpcClient: registerPlate() llamado con placa: {} ===", plate);
         
         try {
             if (!isConnected) {
-                logger.warning("=== SimpleGrpcClient: Cliente no conectado, intentando reconectar ===");
+                logger.warn("=== SimpleGrpcClient: Cliente no conectado, intentando reconectar ===");
                 initializeConnection();
             }
             
             if (isConnected) {
                 // Simular procesamiento
                 String response = "SIMULATED_RESPONSE_FOR_" + plate + "_" + System.currentTimeMillis();
-                logger.info("=== SimpleGrpcClient: Placa registrada exitosamente. Respuesta: " + response + " ===");
+                logger.info("=== SimpleGrpcClient: Placa registrada exitosamente. Respuesta: {} ===", response);
                 return response;
             } else {
-                logger.warning("=== SimpleGrpcClient: No se pudo establecer conexión ===");
+                logger.warn("=== SimpleGrpcClient: No se pudo establecer conexión ===");
                 return "ERROR_NO_CONNECTION";
             }
             
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "=== SimpleGrpcClient: Error en registerPlate ===", e);
+            logger.error("=== SimpleGrpcClient: Error en registerPlate ===", e);
             return "ERROR: " + e.getMessage();
         }
     }
@@ -87,15 +87,15 @@ public class SimpleGrpcClient {
         try {
             if (isConnected) {
                 String channelInfo = "SIMULATED_CHANNEL_INFO_" + System.currentTimeMillis();
-                logger.info("=== SimpleGrpcClient: Channel info obtenida: " + channelInfo + " ===");
+                logger.info("=== SimpleGrpcClient: Channel info obtenida: {} ===", channelInfo);
                 return channelInfo;
             } else {
-                logger.warning("=== SimpleGrpcClient: Canal no disponible - cliente desconectado ===");
+                logger.warn("=== SimpleGrpcClient: Canal no disponible - cliente desconectado ===");
                 return "CHANNEL_UNAVAILABLE";
             }
             
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "=== SimpleGrpcClient: Error en getChannelInfo ===", e);
+            logger.error("=== SimpleGrpcClient: Error en getChannelInfo ===", e);
             return "ERROR: " + e.getMessage();
         }
     }
@@ -104,7 +104,7 @@ public class SimpleGrpcClient {
      * Obtiene el estado del cliente
      */
     public String getClientStatus() {
-        logger.info("=== SimpleGrpcClient: getClientStatus() llamado. Estado actual: " + status + " ===");
+        logger.info("=== SimpleGrpcClient: getClientStatus() llamado. Estado actual: {} ===", status);
         return status;
     }
     
@@ -118,7 +118,7 @@ public class SimpleGrpcClient {
             this.status = "SHUTDOWN";
             logger.info("=== SimpleGrpcClient: Cliente cerrado exitosamente ===");
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "=== SimpleGrpcClient: Error en shutdown ===", e);
+            logger.error("=== SimpleGrpcClient: Error en shutdown ===", e);
         }
     }
     
@@ -127,7 +127,7 @@ public class SimpleGrpcClient {
      */
     public static String testMethod() {
         String result = "SimpleGrpcClient loaded successfully at " + System.currentTimeMillis();
-        logger.info("=== SimpleGrpcClient: testMethod() llamado. Resultado: " + result + " ===");
+        logger.info("=== SimpleGrpcClient: testMethod() llamado. Resultado: {} ===", result);
         return result;
     }
 }
\ No newline at end of file
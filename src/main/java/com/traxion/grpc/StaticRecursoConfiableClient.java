@@ -2,11 +2,14 @@ package com.traxion.grpc;
 
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
+import io.grpc.Metadata;
 import io.grpc.StatusRuntimeException;
+import io.grpc.stub.MetadataUtils;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
-import java.util.logging.Logger;
-import java.util.logging.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
 
 /**
  * CLIENTE gRPC ESTÁTICO PARA WEBHOOK TRAXPORTA
@@ -83,9 +86,24 @@ public class StaticRecursoConfiableClient {
     
     /**
      * LOGGER PARA DEBUGGING
-     * Registra todas las operaciones para facilitar el debugging
+     * Usa log4j2 (AsyncLogger com.traxion.grpc en log4j2.xml) con mensajes
+     * parametrizados: los textos solo se arman si el nivel está habilitado.
+     * El detalle por llamada va en DEBUG; en INFO queda una línea por registro.
      */
-    private static final Logger logger = Logger.getLogger(StaticRecursoConfiableClient.class.getName());
+    private static final Logger logger = LogManager.getLogger(StaticRecursoConfiableClient.class);
+
+    /**
+     * CLAVE DEL MDC
+     * Misma clave que usa Mule en el patrón del log (%X{correlationId})
+     */
+    private static final String CORRELATION_ID = "correlationId";
+
+    /**
+     * METADATA DE TRAZA W3C
+     * El webhook recibe el traceparent del span de la llamada para continuar la traza
+     */
+    private static final Metadata.Key<String> TRACEPARENT =
+            Metadata.Key.of("traceparent", Metadata.ASCII_STRING_MARSHALLER);
 
     // ===============================
     // MÉTODO PRINCIPAL DE CONEXIÓN gRPC
@@ -112,7 +130,7 @@ public class StaticRecursoConfiableClient {
                 // DOBLE VERIFICACIÓN - Patrón thread-safe singleton
                 if (channel == null || channel.isShutdown() || channel.isTerminated()) {
                     logger.info("=== CREANDO NUEVO CANAL gRPC ===");
-                    logger.info("Conectando a: " + HOST + ":" + PORT);
+                    logger.info("Conectando a: {}:{}", HOST, PORT);
                     
                     // CREAR CANAL CON CONFIGURACIÓN COMPLETA
                     channel = ManagedChannelBuilder.forAddress(HOST, PORT)
@@ -131,7 +149,7 @@ public class StaticRecursoConfiableClient {
                             .build();
                     
                     logger.info("Canal gRPC creado exitosamente");
-                    logger.info("Estado inicial del canal: " + channel.getState(false));
+                    logger.info("Estado inicial del canal: {}", channel.getState(false));
                 }
             }
         }
@@ -149,7 +167,7 @@ public class StaticRecursoConfiableClient {
      * Registra una placa en el servicio gRPC (versión con Map)
      */
     public static String registerPlate(Map<String, Object> plateData) {
-        logger.info("=== INICIO registerPlate (Map) ===");
+        logger.debug("=== INICIO registerPlate (Map) ===");
         
         if (plateData == null) {
             return "ERROR: plateData cannot be null";
@@ -182,13 +200,20 @@ public class StaticRecursoConfiableClient {
      * String response = StaticRecursoConfiableClient.registerPlate("ABC123", "LOAD001", "LN001");
      */
     public static String registerPlate(String plate, String loadId, String loadNumber) {
-        logger.info("=== INICIO registerPlate (parámetros) ===");
-        logger.info("Registrando placa: " + plate + ", LoadId: " + loadId + ", LoadNumber: " + loadNumber);
+        return send(plate, loadId, loadNumber, null);
+    }
+
+    /**
+     * Llamada gRPC de registerPlate; si hay traceparent se envía como metadata.
+     */
+    private static String send(String plate, String loadId, String loadNumber, String traceparent) {
+        logger.debug("=== INICIO registerPlate (parámetros) ===");
+        logger.info("Registrando placa: {}, LoadId: {}, LoadNumber: {}", plate, loadId, loadNumber);
         
         try {
             // 1. OBTENER CANAL gRPC - Reutiliza conexión existente o crea nueva
             ManagedChannel currentChannel = getChannel();
-            logger.info("Estado del canal gRPC: " + currentChannel.getState(false));
+            logger.debug("Estado del canal gRPC: {}", () -> currentChannel.getState(false));
             
             // 2. VERIFICAR ESTADO DEL CANAL - Asegurar que esté disponible
             if (currentChannel.isShutdown() || currentChannel.isTerminated()) {
@@ -199,6 +224,11 @@ public class StaticRecursoConfiableClient {
             // IMPORTANTE: Usa las clases generadas por protobuf (RecursoConfiableRPCGrpc)
             RecursoConfiableRPCGrpc.RecursoConfiableRPCBlockingStub blockingStub = 
                 RecursoConfiableRPCGrpc.newBlockingStub(currentChannel);
+            if (traceparent != null && !traceparent.isEmpty()) {
+                Metadata headers = new Metadata();
+                headers.put(TRACEPARENT, traceparent);
+                blockingStub = blockingStub.withInterceptors(MetadataUtils.newAttachHeadersInterceptor(headers));
+            }
             
             // 4. CONSTRUIR REQUEST - Mensaje gRPC con los datos de entrada
             // IMPORTANTE: Usa las clases generadas por protobuf (RecursoConfiable.RegisterRequest)
@@ -208,7 +238,7 @@ public class StaticRecursoConfiableClient {
                     .setLoadNumber(loadNumber) // Número de carga
                     .build();
             
-            logger.info("Enviando request gRPC al webhook: " + request.toString());
+            logger.debug("Enviando request gRPC al webhook: {}", () -> request);
             
             // 5. LLAMADA gRPC REAL - Comunicación con el webhook remoto
             // CRÍTICO: Esta es la llamada real al webhook.traxporta.com:443
@@ -216,7 +246,7 @@ public class StaticRecursoConfiableClient {
             
             // 6. PROCESAR RESPUESTA - Extraer datos del webhook
             String webhookResponse = reply.getMessage();
-            logger.info("Respuesta recibida del webhook: " + webhookResponse);
+            logger.info("Respuesta recibida del webhook: {}", webhookResponse);
             
             // 7. FORMATEAR RESPUESTA - Estructura JSON para fácil parsing
             // FORMATO: Prefijo "WEBHOOK_RESPONSE:" + JSON con datos estructurados
@@ -231,9 +261,7 @@ public class StaticRecursoConfiableClient {
                 "\"connection_status\": \"CONNECTED\"" +
                 "}";
             
-            logger.info("Respuesta del webhook real: " + webhookResponse);
-            logger.info("Respuesta estructurada completa: " + response);
-            logger.info("=== FIN registerPlate - RETORNANDO: " + response + " ===");
+            logger.debug("=== FIN registerPlate - RETORNANDO: {} ===", response);
             
             return response;
             
@@ -243,20 +271,61 @@ public class StaticRecursoConfiableClient {
             String errorMessage = "STATIC_gRPC_ERROR: Status=" + e.getStatus() + 
                                 ", Descripción=" + e.getStatus().getDescription() + 
                                 ", Causa=" + e.getCause();
-            logger.log(Level.SEVERE, "Error gRPC en registerPlate: " + errorMessage, e);
-            logger.info("=== FIN registerPlate - ERROR gRPC ===");
+            logger.error("Error gRPC en registerPlate: {}", errorMessage, e);
+            logger.debug("=== FIN registerPlate - ERROR gRPC ===");
             return errorMessage;
             
         } catch (Exception e) {
             // MANEJO DE ERRORES GENERALES - Cualquier otro tipo de error
             // Incluye problemas de red, configuración, etc.
             String errorMessage = "STATIC_ERROR: " + e.getMessage();
-            logger.log(Level.SEVERE, "Error general en registerPlate: " + errorMessage, e);
-            logger.info("=== FIN registerPlate - ERROR GENERAL ===");
+            logger.error("Error general en registerPlate: {}", errorMessage, e);
+            logger.debug("=== FIN registerPlate - ERROR GENERAL ===");
             return errorMessage;
         }
     }
 
+    /**
+     * Registra una placa con el correlationId del evento de Mule en el MDC.
+     *
+     * Si el hilo ya trae el mismo correlationId no se toca el contexto; si no, se
+     * coloca durante la llamada y al final se restaura el valor anterior, para que
+     * las líneas del cliente se puedan unir con las del flujo.
+     *
+     * Desde DataWeave:
+     * StaticRecursoConfiableClient::registerPlate(plate, loadId, loadNumber, correlationId)
+     */
+    public static String registerPlate(String plate, String loadId, String loadNumber, String correlationId) {
+        return registerPlate(plate, loadId, loadNumber, correlationId, null);
+    }
+
+    /**
+     * Igual que la versión con correlationId, enviando además el traceparent W3C del
+     * span de la llamada como metadata gRPC.
+     *
+     * Desde DataWeave:
+     * StaticRecursoConfiableClient::registerPlate(plate, loadId, loadNumber, correlationId, vars.bulkheadSpan.traceparent)
+     */
+    public static String registerPlate(String plate, String loadId, String loadNumber, String correlationId,
+                                       String traceparent) {
+        String previous = ThreadContext.get(CORRELATION_ID);
+        boolean replaced = correlationId != null && !correlationId.equals(previous);
+        if (replaced) {
+            ThreadContext.put(CORRELATION_ID, correlationId);
+        }
+        try {
+            return send(plate, loadId, loadNumber, traceparent);
+        } finally {
+            if (replaced) {
+                if (previous == null) {
+                    ThreadContext.remove(CORRELATION_ID);
+                } else {
+                    ThreadContext.put(CORRELATION_ID, previous);
+                }
+            }
+        }
+    }
+
     /**
      * MÉTODO ALTERNATIVO - Registra placa usando Map<String, String>
      * 
@@ -274,14 +343,14 @@ public class StaticRecursoConfiableClient {
      * String response = StaticRecursoConfiableClient.registerPlateFromStringMap(data);
      */
     public static String registerPlateFromStringMap(Map<String, String> plateData) {
-        logger.info("=== INICIO registerPlateFromStringMap (Map<String,String>) ===");
+        logger.debug("=== INICIO registerPlateFromStringMap (Map<String,String>) ===");
         
         // EXTRAER DATOS DEL MAP - Obtener valores requeridos
         String plate = plateData.get("plate");
         String loadId = plateData.get("loadId");
         String loadNumber = plateData.get("loadNumber");
         
-        logger.info("Datos extraídos del Map - Placa: " + plate + ", LoadId: " + loadId + ", LoadNumber: " + loadNumber);
+        logger.debug("Datos extraídos del Map - Placa: {}, LoadId: {}, LoadNumber: {}", plate, loadId, loadNumber);
         
         // DELEGAR AL MÉTODO PRINCIPAL - Reutilizar lógica existente
         return registerPlate(plate, loadId, loadNumber);
@@ -302,19 +371,19 @@ public class StaticRecursoConfiableClient {
      * @return String con información del estado del canal
      */
     public static String getChannelInfo() {
-        logger.info("=== INICIO getChannelInfo ===");
+        logger.debug("=== INICIO getChannelInfo ===");
         try {
             ManagedChannel currentChannel = getChannel();
             String info = "Canal gRPC - Estado: " + currentChannel.getState(false) + 
                          ", Autoridad: " + currentChannel.authority() + 
                          ", Cerrado: " + currentChannel.isShutdown() + 
                          ", Terminado: " + currentChannel.isTerminated();
-            logger.info("Información del canal: " + info);
-            logger.info("=== FIN getChannelInfo ===");
+            logger.info("Información del canal: {}", info);
+            logger.debug("=== FIN getChannelInfo ===");
             return info;
         } catch (Exception e) {
             String error = "Error obteniendo información del canal: " + e.getMessage();
-            logger.log(Level.SEVERE, error, e);
+            logger.error(error, e);
             return error;
         }
     }
@@ -327,7 +396,7 @@ public class StaticRecursoConfiableClient {
      * @return String con el estado actual del cliente
      */
     public static String getClientStatus() {
-        logger.info("=== INICIO getClientStatus ===");
+        logger.debug("=== INICIO getClientStatus ===");
         try {
             ManagedChannel currentChannel = getChannel();
             
@@ -344,13 +413,13 @@ public class StaticRecursoConfiableClient {
                 "\"server\": \"" + HOST + ":" + PORT + "\"" +
                 "}";
             
-            logger.info("Estado del cliente: " + status);
-            logger.info("=== FIN getClientStatus ===");
+            logger.info("Estado del cliente: {}", status);
+            logger.debug("=== FIN getClientStatus ===");
             return status;
             
         } catch (Exception e) {
             String error = "STATIC_CLIENT_ERROR: " + e.getMessage();
-            logger.log(Level.SEVERE, "Error obteniendo estado del cliente: " + error, e);
+            logger.error("Error obteniendo estado del cliente: {}", error, e);
             return error;
         }
     }
@@ -364,7 +433,7 @@ public class StaticRecursoConfiableClient {
         try {
             return channel != null && channel.isShutdown();
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error verificando estado shutdown: " + e.getMessage(), e);
+            logger.error("Error verificando estado shutdown: {}", e.getMessage(), e);
             return true; // Asumir cerrado en caso de error
         }
     }
@@ -378,7 +447,7 @@ public class StaticRecursoConfiableClient {
      * @return String confirmación del cierre
      */
     public static String shutdown() {
-        logger.info("=== INICIO shutdown ===");
+        logger.debug("=== INICIO shutdown ===");
         synchronized (lock) {
             if (channel != null && !channel.isShutdown()) {
                 try {
@@ -389,17 +458,17 @@ public class StaticRecursoConfiableClient {
                     if (!channel.awaitTermination(5, TimeUnit.SECONDS)) {
                         // FORZAR CIERRE - Si no se cierra en 5 segundos
                         channel.shutdownNow();
-                        logger.log(Level.WARNING, "Canal gRPC forzado a cerrar después de timeout");
+                        logger.warn("Canal gRPC forzado a cerrar después de timeout");
                     }
                     
                     String result = "STATIC_SHUTDOWN: Canal gRPC cerrado correctamente";
                     logger.info(result);
-                    logger.info("=== FIN shutdown ===");
+                    logger.debug("=== FIN shutdown ===");
                     return result;
                     
                 } catch (InterruptedException e) {
                     String error = "STATIC_SHUTDOWN_ERROR: Interrupción durante el cierre";
-                    logger.log(Level.WARNING, error, e);
+                    logger.warn(error, e);
                     Thread.currentThread().interrupt();
                     return error;
                 }
@@ -420,7 +489,7 @@ public class StaticRecursoConfiableClient {
      * @return Map<String, Object> con información detallada del cliente
      */
     public static java.util.Map<String, Object> getDetailedInfo() {
-        logger.info("=== INICIO getDetailedInfo ===");
+        logger.debug("=== INICIO getDetailedInfo ===");
         java.util.Map<String, Object> info = new java.util.HashMap<>();
         
         try {
@@ -449,11 +518,11 @@ public class StaticRecursoConfiableClient {
             info.put("keep_alive_timeout", "5 seconds");
             info.put("max_message_size", "4MB");
             
-            logger.info("Información detallada generada: " + info.toString());
-            logger.info("=== FIN getDetailedInfo ===");
+            logger.debug("Información detallada generada: {}", info);
+            logger.debug("=== FIN getDetailedInfo ===");
             
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error generando información detallada: " + e.getMessage(), e);
+            logger.error("Error generando información detallada: {}", e.getMessage(), e);
             info.put("error", "Error obteniendo información: " + e.getMessage());
         }
         
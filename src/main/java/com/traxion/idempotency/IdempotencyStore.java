@@ -0,0 +1,218 @@
+package com.traxion.idempotency;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.traxion.json.RawValues;
+import com.traxion.resilience.RequestWaits;
+
+/**
+ * Registro de peticiones POST con encabezado Idempotency-Key.
+ *
+ * La primera petición con una llave la ejecuta normalmente y al terminar guarda
+ * su respuesta con {@link #complete(String, Object, Object)}; los reintentos con la
+ * misma llave reciben esa respuesta sin volver a transformar ni publicar. Si el
+ * reintento llega mientras la primera sigue en curso, espera hasta {@code waitMillis}
+ * a que termine y recibe su respuesta; los clientes que reintentan por timeout suelen
+ * llegar justo en ese momento. La espera ocupa un lugar de {@link RequestWaits}: sin
+ * lugar, o si la primera no termina a tiempo, se responde IN_PROGRESS (409 con
+ * Retry-After). Si la primera falla, {@link #abort(String)} libera la llave y el
+ * reintento que esperaba vuelve a ejecutar el flujo.
+ *
+ * Las llaves se conservan {@code ttlSeconds} desde que se registran y el registro
+ * no guarda más de {@code maxEntries}; al llenarse se descartan las más antiguas.
+ * El registro vive en memoria de cada worker. La llave la arma el flujo con el
+ * client_id autenticado, el método y la ruta, así que dos clientes pueden usar el
+ * mismo Idempotency-Key sin ver la respuesta del otro.
+ *
+ * Uso desde DataWeave:
+ *
+ * <pre>
+ * import java!com::traxion::idempotency::IdempotencyStore
+ * ---
+ * IdempotencyStore::begin(vars.idempotencyKey, payload.^raw, {waitMillis: 30000, ttlSeconds: 86400, maxEntries: 10000, maxWaiters: 64})
+ * </pre>
+ */
+public class IdempotencyStore {
+
+    /** La petición es la primera con esta llave y debe ejecutarse. */
+    public static final String NEW = "NEW";
+
+    /** Ya existe una respuesta guardada para esta llave. */
+    public static final String REPLAY = "REPLAY";
+
+    /** La llave ya se usó con un cuerpo distinto. */
+    public static final String MISMATCH = "MISMATCH";
+
+    /** La primera petición sigue en curso después de esperar waitMillis. */
+    public static final String IN_PROGRESS = "IN_PROGRESS";
+
+    private static final long DEFAULT_WAIT_MILLIS = 30000L;
+    private static final long DEFAULT_TTL_SECONDS = 86400L;
+    private static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    private static volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+
+    private static final LinkedHashMap<String, Record> ENTRIES = new LinkedHashMap<String, Record>() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Record> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private IdempotencyStore() {
+    }
+
+    /**
+     * Registra la llave o recupera su respuesta.
+     *
+     * @param key llave de idempotencia (incluye client_id, método y ruta para no mezclar clientes ni endpoints)
+     * @param request cuerpo de la petición; se guarda su huella para detectar reutilización de la llave
+     * @param settings Map con waitMillis, ttlSeconds, maxEntries y maxWaiters (opcionales)
+     * @return Map con {@code status} y, si es REPLAY, {@code httpStatus} y {@code body}
+     */
+    public static Map<String, Object> begin(String key, Object request, Map<String, Object> settings) {
+        long waitNanos = TimeUnit.MILLISECONDS.toNanos(
+                Math.max(0L, RawValues.toLong(RawValues.setting(settings, "waitMillis"), DEFAULT_WAIT_MILLIS)));
+        long ttlNanos = TimeUnit.SECONDS.toNanos(RawValues.toLong(RawValues.setting(settings, "ttlSeconds"), DEFAULT_TTL_SECONDS));
+        maxEntries = (int) Math.max(1, RawValues.toLong(RawValues.setting(settings, "maxEntries"), DEFAULT_MAX_ENTRIES));
+        byte[] fingerprint = fingerprint(request);
+        long deadline = System.nanoTime() + waitNanos;
+
+        boolean waiting = false;
+        try {
+            while (true) {
+                Record entry;
+                synchronized (ENTRIES) {
+                    long now = System.nanoTime();
+                    evictExpired(now);
+                    entry = ENTRIES.get(key);
+                    if (entry == null) {
+                        ENTRIES.put(key, new Record(fingerprint, now + ttlNanos));
+                        return result(NEW);
+                    }
+                }
+                if (!MessageDigest.isEqual(entry.fingerprint, fingerprint)) {
+                    return result(MISMATCH);
+                }
+                if (!entry.isDone()) {
+                    if (!waiting) {
+                        if (waitNanos == 0L || !RequestWaits.tryEnter(settings)) {
+                            return result(IN_PROGRESS);
+                        }
+                        waiting = true;
+                    }
+                    if (!RequestWaits.await(entry.done, deadline - System.nanoTime())) {
+                        return result(IN_PROGRESS);
+                    }
+                }
+                if (entry.completed) {
+                    Map<String, Object> result = result(REPLAY);
+                    result.put("httpStatus", entry.httpStatus);
+                    result.put("body", entry.body);
+                    return result;
+                }
+                // La petición original falló y liberó la llave: se vuelve a intentar registrarla
+            }
+        } finally {
+            if (waiting) {
+                RequestWaits.exit();
+            }
+        }
+    }
+
+    /**
+     * Guarda la respuesta de la petición original y despierta a los reintentos en espera.
+     */
+    public static boolean complete(String key, Object httpStatus, Object body) {
+        Record entry;
+        synchronized (ENTRIES) {
+            entry = ENTRIES.get(key);
+        }
+        if (entry == null || entry.isDone()) {
+            return false;
+        }
+        entry.httpStatus = (int) RawValues.toLong(httpStatus, 200L);
+        entry.body = RawValues.toBytes(body, "cuerpo para idempotencia");
+        entry.completed = true;
+        entry.done.countDown();
+        return true;
+    }
+
+    /**
+     * Libera la llave cuando la petición original falla, para que un reintento la ejecute.
+     */
+    public static boolean abort(String key) {
+        Record entry;
+        synchronized (ENTRIES) {
+            entry = ENTRIES.get(key);
+            if (entry == null || entry.isDone()) {
+                return false;
+            }
+            ENTRIES.remove(key);
+        }
+        entry.done.countDown();
+        return true;
+    }
+
+    /**
+     * Número de llaves registradas, para monitoreo.
+     */
+    public static int size() {
+        synchronized (ENTRIES) {
+            return ENTRIES.size();
+        }
+    }
+
+    private static void evictExpired(long now) {
+        // El orden de inserción coincide con el de expiración porque el TTL es el mismo para todas
+        Iterator<Record> iterator = ENTRIES.values().iterator();
+        while (iterator.hasNext()) {
+            Record entry = iterator.next();
+            if (entry.expiresAtNanos - now > 0) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+
+    private static Map<String, Object> result(String status) {
+        Map<String, Object> result = new HashMap<>(4);
+        result.put("status", status);
+        return result;
+    }
+
+    private static final class Record {
+        final byte[] fingerprint;
+        final long expiresAtNanos;
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile boolean completed;
+        volatile int httpStatus;
+        volatile byte[] body;
+
+        Record(byte[] fingerprint, long expiresAtNanos) {
+            this.fingerprint = fingerprint;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        boolean isDone() {
+            return done.getCount() == 0;
+        }
+    }
+
+    private static byte[] fingerprint(Object request) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(RawValues.toBytes(request, "cuerpo para idempotencia"));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
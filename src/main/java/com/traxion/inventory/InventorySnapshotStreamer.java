@@ -0,0 +1,346 @@
+package com.traxion.inventory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.traxion.json.JsonValues;
+
+/**
+ * Agrupa por SKU los lotes de un snapshot de inventario de WMS sin cargar el
+ * documento completo en memoria.
+ *
+ * El JSON de entrada se lee de forma incremental hasta el arreglo
+ * {@code UC_TRX_INVENTORY_SNAPSHOT.inventory_snapshot} y cada grupo de lotes con el
+ * mismo {@code PRODUCT_NUMBER} se entrega como un elemento del iterador, con la
+ * misma forma que produce {@code groupBy ... pluck} en DataWeave (List de Map).
+ *
+ * Dos modos de operación:
+ * <ul>
+ * <li>Ordenado por SKU: cada grupo se emite en cuanto aparece el siguiente SKU;
+ * la memoria queda acotada al grupo más grande.</li>
+ * <li>Sin orden: los grupos se acumulan en memoria hasta {@code maxLotsInMemory}
+ * lotes; al superarlo se vuelcan a archivos temporales particionados por hash del
+ * SKU y al final se emite partición por partición. Sin volcado se conserva el orden
+ * de primera aparición, igual que groupBy.</li>
+ * </ul>
+ *
+ * Uso desde DataWeave:
+ *
+ * <pre>
+ * import java!com::traxion::inventory::InventorySnapshotStreamer
+ * ---
+ * InventorySnapshotStreamer::groups(payload.^raw, p('inventory.snapshot.max.lots.in.memory'), p('inventory.snapshot.sorted'))
+ * </pre>
+ */
+public class InventorySnapshotStreamer implements Iterator<List<Map<String, Object>>>, Closeable {
+
+    private static final Logger LOGGER = LogManager.getLogger(InventorySnapshotStreamer.class);
+
+    private static final String ROOT_FIELD = "UC_TRX_INVENTORY_SNAPSHOT";
+    private static final String ARRAY_FIELD = "inventory_snapshot";
+    private static final String SKU_FIELD = "PRODUCT_NUMBER";
+
+    private static final int DEFAULT_MAX_LOTS_IN_MEMORY = 20000;
+    private static final int SPILL_PARTITIONS = 16;
+
+    private final JsonParser parser;
+    private final boolean sorted;
+    private final int maxLotsInMemory;
+
+    // Modo ordenado: primer lote del siguiente grupo
+    private Map<String, Object> lookahead;
+
+    // Modo sin orden
+    private Iterator<List<Map<String, Object>>> pending;
+    private SpillPartitions spill;
+    private int nextPartition;
+
+    private List<Map<String, Object>> next;
+    private boolean exhausted;
+
+    private InventorySnapshotStreamer(JsonParser parser, boolean sorted, int maxLotsInMemory) {
+        this.parser = parser;
+        this.sorted = sorted;
+        this.maxLotsInMemory = maxLotsInMemory;
+    }
+
+    /**
+     * Crea el iterador de grupos por SKU.
+     *
+     * @param snapshot JSON del snapshot (InputStream, byte[], Reader o String)
+     * @param maxLotsInMemory lotes a mantener en memoria antes de volcar a disco (modo sin orden)
+     * @param sortedBySku true si WMS envía los lotes ordenados por PRODUCT_NUMBER
+     */
+    public static Iterator<List<Map<String, Object>>> groups(Object snapshot, Object maxLotsInMemory, Object sortedBySku) {
+        JsonParser parser = null;
+        try {
+            parser = JsonValues.parser(snapshot);
+            if (!seekArray(parser)) {
+                parser.close();
+                return new ArrayList<List<Map<String, Object>>>().iterator();
+            }
+            return new InventorySnapshotStreamer(parser,
+                    Boolean.parseBoolean(String.valueOf(sortedBySku).trim()),
+                    toInt(maxLotsInMemory, DEFAULT_MAX_LOTS_IN_MEMORY));
+        } catch (IOException e) {
+            closeQuietly(parser);
+            throw new UncheckedIOException("Error leyendo snapshot de inventario", e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !exhausted) {
+            try {
+                next = sorted ? nextSortedGroup() : nextUnsortedGroup();
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException("Error leyendo snapshot de inventario", e);
+            }
+            if (next == null) {
+                close();
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public List<Map<String, Object>> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        List<Map<String, Object>> group = next;
+        next = null;
+        return group;
+    }
+
+    @Override
+    public void close() {
+        exhausted = true;
+        closeQuietly(parser);
+        if (spill != null) {
+            spill.delete();
+            spill = null;
+        }
+    }
+
+    private List<Map<String, Object>> nextSortedGroup() throws IOException {
+        Map<String, Object> first = lookahead != null ? lookahead : readLot(parser);
+        lookahead = null;
+        if (first == null) {
+            return null;
+        }
+        String sku = skuOf(first);
+        List<Map<String, Object>> group = new ArrayList<>();
+        group.add(first);
+        Map<String, Object> lot;
+        while ((lot = readLot(parser)) != null) {
+            if (!sku.equals(skuOf(lot))) {
+                lookahead = lot;
+                break;
+            }
+            group.add(lot);
+        }
+        return group;
+    }
+
+    private List<Map<String, Object>> nextUnsortedGroup() throws IOException {
+        if (pending == null) {
+            pending = groupInput();
+        }
+        while (!pending.hasNext()) {
+            if (spill == null || nextPartition >= SPILL_PARTITIONS) {
+                return null;
+            }
+            pending = spill.read(nextPartition++);
+        }
+        return pending.next();
+    }
+
+    /**
+     * Lee todo el arreglo agrupando en memoria y volcando a disco cuando se supera
+     * el límite. Regresa los grupos que quedaron en memoria (sin volcado) o un
+     * iterador vacío si todo se volcó a particiones.
+     */
+    private Iterator<List<Map<String, Object>>> groupInput() throws IOException {
+        Map<String, List<Map<String, Object>>> buffer = new LinkedHashMap<>();
+        int buffered = 0;
+        Map<String, Object> lot;
+        while ((lot = readLot(parser)) != null) {
+            buffer.computeIfAbsent(skuOf(lot), sku -> new ArrayList<>()).add(lot);
+            if (++buffered >= maxLotsInMemory) {
+                spillBuffer(buffer);
+                buffered = 0;
+            }
+        }
+        closeQuietly(parser);
+        if (spill != null) {
+            spillBuffer(buffer);
+            spill.finishWriting();
+        }
+        return buffer.values().iterator();
+    }
+
+    private void spillBuffer(Map<String, List<Map<String, Object>>> buffer) throws IOException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        if (spill == null) {
+            LOGGER.info("Snapshot de inventario supera {} lotes, volcando grupos a disco", maxLotsInMemory);
+            spill = new SpillPartitions();
+        }
+        for (Map.Entry<String, List<Map<String, Object>>> entry : buffer.entrySet()) {
+            for (Map<String, Object> lot : entry.getValue()) {
+                spill.write(entry.getKey(), lot);
+            }
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Archivos temporales con los lotes volcados, uno por partición de hash del SKU.
+     * Todos los lotes de un SKU caen en la misma partición, así cada partición se
+     * puede agrupar en memoria de forma independiente.
+     */
+    private static final class SpillPartitions {
+
+        private final File[] files = new File[SPILL_PARTITIONS];
+        private final JsonGenerator[] writers = new JsonGenerator[SPILL_PARTITIONS];
+
+        void write(String sku, Map<String, Object> lot) throws IOException {
+            int partition = Math.floorMod(sku.hashCode(), SPILL_PARTITIONS);
+            JsonGenerator writer = writers[partition];
+            if (writer == null) {
+                files[partition] = File.createTempFile("inventory-snapshot-" + partition + "-", ".json");
+                writer = JsonValues.FACTORY.createGenerator(files[partition], JsonEncoding.UTF8);
+                writer.writeStartArray();
+                writers[partition] = writer;
+            }
+            JsonValues.write(writer, lot);
+        }
+
+        void finishWriting() throws IOException {
+            for (int i = 0; i < SPILL_PARTITIONS; i++) {
+                if (writers[i] != null) {
+                    writers[i].writeEndArray();
+                    writers[i].close();
+                    writers[i] = null;
+                }
+            }
+        }
+
+        Iterator<List<Map<String, Object>>> read(int partition) throws IOException {
+            Map<String, List<Map<String, Object>>> groups = new LinkedHashMap<>();
+            if (files[partition] == null) {
+                return groups.values().iterator();
+            }
+            try (JsonParser partitionParser = JsonValues.FACTORY.createParser(files[partition])) {
+                partitionParser.nextToken();
+                Map<String, Object> lot;
+                while ((lot = readLot(partitionParser)) != null) {
+                    groups.computeIfAbsent(skuOf(lot), sku -> new ArrayList<>()).add(lot);
+                }
+            } finally {
+                deleteFile(partition);
+            }
+            return groups.values().iterator();
+        }
+
+        void delete() {
+            for (int i = 0; i < SPILL_PARTITIONS; i++) {
+                closeQuietly(writers[i]);
+                writers[i] = null;
+                deleteFile(i);
+            }
+        }
+
+        private void deleteFile(int partition) {
+            if (files[partition] != null) {
+                if (!files[partition].delete()) {
+                    LOGGER.warn("No se pudo borrar {}", files[partition]);
+                }
+                files[partition] = null;
+            }
+        }
+    }
+
+    /**
+     * Avanza el parser hasta el inicio de UC_TRX_INVENTORY_SNAPSHOT.inventory_snapshot.
+     */
+    private static boolean seekArray(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        return seekField(parser, ROOT_FIELD, JsonToken.START_OBJECT)
+                && seekField(parser, ARRAY_FIELD, JsonToken.START_ARRAY);
+    }
+
+    private static boolean seekField(JsonParser parser, String name, JsonToken expected) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (name.equals(field) && value == expected) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    /**
+     * Lee el siguiente lote del arreglo; null al llegar al final.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readLot(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        while (token != null && token != JsonToken.END_ARRAY) {
+            if (token == JsonToken.START_OBJECT) {
+                return (Map<String, Object>) JsonValues.read(parser);
+            }
+            // Elementos que no son objeto se ignoran, como en groupBy sobre PRODUCT_NUMBER
+            parser.skipChildren();
+            token = parser.nextToken();
+        }
+        return null;
+    }
+
+    private static String skuOf(Map<String, Object> lot) {
+        return String.valueOf(lot.get(SKU_FIELD));
+    }
+
+    private static int toInt(Object value, int defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        String text = value.toString().trim();
+        return text.isEmpty() ? defaultValue : Math.max(1, Integer.parseInt(text));
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                LOGGER.debug("Error cerrando recurso: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.traxion.jobs;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.traxion.json.RawValues;
+
+/**
+ * Registro en memoria de trabajos asíncronos (p. ej. generación de carta porte).
+ *
+ * El flujo HTTP registra el trabajo con {@link #submit(Object, Object)} y responde
+ * 202 con el id; el procesamiento en segundo plano marca el resultado con
+ * {@link #complete(String, Object)} o {@link #fail(String, String, String, Object)}
+ * y el endpoint de consulta lo lee con {@link #get(String)}.
+ *
+ * {@code maxPending} limita cuántos trabajos pueden estar pendientes o en curso a la
+ * vez; cuando se alcanza, {@code submit} devuelve null y el flujo responde 429 en
+ * lugar de encolar sin límite. Los trabajos terminados se conservan
+ * {@code ttlSeconds} desde que terminan.
+ *
+ * El registro vive en memoria del worker que recibió la petición, que es el mismo
+ * que ejecuta el trabajo, así que el límite de pendientes es por worker. Para que la
+ * consulta funcione con varios workers, el flujo copia {@link #get(String)} al
+ * Object Store {@code carta_porte_jobs_store} en cada cambio de estado y el
+ * endpoint de consulta lee de ahí.
+ *
+ * Uso desde DataWeave:
+ *
+ * <pre>
+ * import java!com::traxion::jobs::JobRegistry
+ * ---
+ * JobRegistry::submit(p('carta.porte.async.max.pending'), p('carta.porte.async.ttl.seconds'))
+ * </pre>
+ */
+public class JobRegistry {
+
+    public static final String PENDING = "PENDING";
+    public static final String RUNNING = "RUNNING";
+    public static final String SUCCEEDED = "SUCCEEDED";
+    public static final String FAILED = "FAILED";
+
+    private static final int DEFAULT_MAX_PENDING = 50;
+    private static final long DEFAULT_TTL_SECONDS = 3600L;
+
+
+    private static final LinkedHashMap<String, Job> JOBS = new LinkedHashMap<>();
+
+    private static int active;
+
+    private JobRegistry() {
+    }
+
+    /**
+     * Registra un trabajo nuevo en estado PENDING.
+     *
+     * @return id del trabajo, o null si ya hay {@code maxPending} trabajos sin terminar
+     */
+    public static String submit(Object maxPending, Object ttlSeconds) {
+        int limit = (int) Math.max(1, RawValues.toLong(maxPending, DEFAULT_MAX_PENDING));
+        long ttlNanos = TimeUnit.SECONDS.toNanos(RawValues.toLong(ttlSeconds, DEFAULT_TTL_SECONDS));
+        synchronized (JOBS) {
+            evictExpired(System.nanoTime());
+            if (active >= limit) {
+                return null;
+            }
+            String id = UUID.randomUUID().toString();
+            JOBS.put(id, new Job(ttlNanos, System.currentTimeMillis()));
+            active++;
+            return id;
+        }
+    }
+
+    /**
+     * Marca el trabajo como RUNNING cuando el procesamiento en segundo plano lo toma.
+     */
+    public static boolean start(String id) {
+        synchronized (JOBS) {
+            Job job = JOBS.get(id);
+            if (job == null || !PENDING.equals(job.status)) {
+                return false;
+            }
+            job.status = RUNNING;
+            job.startedAt = System.currentTimeMillis();
+            return true;
+        }
+    }
+
+    /**
+     * Guarda la respuesta del trabajo terminado correctamente.
+     */
+    public static boolean complete(String id, Object result) {
+        byte[] body = RawValues.toBytes(result, "resultado del trabajo");
+        synchronized (JOBS) {
+            Job job = finish(id, SUCCEEDED);
+            if (job == null) {
+                return false;
+            }
+            job.result = body;
+            return true;
+        }
+    }
+
+    /**
+     * Guarda el error del trabajo.
+     *
+     * @param errorType tipo de error de Mule ({@code error.errorType.asString})
+     * @param description descripción del error
+     * @param detail detalle para el usuario (p. ej. el cuerpo devuelto por process-pharma-api), opcional
+     */
+    public static boolean fail(String id, String errorType, String description, Object detail) {
+        byte[] body = detail == null ? null : RawValues.toBytes(detail, "resultado del trabajo");
+        synchronized (JOBS) {
+            Job job = finish(id, FAILED);
+            if (job == null) {
+                return false;
+            }
+            job.errorType = errorType;
+            job.errorDescription = description;
+            job.result = body;
+            return true;
+        }
+    }
+
+    /**
+     * Estado del trabajo.
+     *
+     * @return Map con {@code job_id}, {@code status}, {@code submitted_at}, {@code started_at},
+     *         {@code finished_at} y, según el estado, {@code result} (bytes JSON) o
+     *         {@code error_type}, {@code error_description} y {@code error_detail}; null si
+     *         el trabajo no existe o ya expiró
+     */
+    public static Map<String, Object> get(String id) {
+        synchronized (JOBS) {
+            evictExpired(System.nanoTime());
+            Job job = id == null ? null : JOBS.get(id);
+            if (job == null) {
+                return null;
+            }
+            Map<String, Object> view = new HashMap<>(16);
+            view.put("job_id", id);
+            view.put("status", job.status);
+            view.put("submitted_at", job.submittedAt);
+            view.put("started_at", job.startedAt);
+            view.put("finished_at", job.finishedAt);
+            if (SUCCEEDED.equals(job.status)) {
+                view.put("result", job.result);
+            } else if (FAILED.equals(job.status)) {
+                view.put("error_type", job.errorType);
+                view.put("error_description", job.errorDescription);
+                view.put("error_detail", job.result);
+            }
+            return view;
+        }
+    }
+
+    /**
+     * Número de trabajos pendientes o en curso, para monitoreo.
+     */
+    public static int active() {
+        synchronized (JOBS) {
+            return active;
+        }
+    }
+
+    private static Job finish(String id, String status) {
+        Job job = JOBS.get(id);
+        if (job == null || SUCCEEDED.equals(job.status) || FAILED.equals(job.status)) {
+            return null;
+        }
+        job.status = status;
+        job.finishedAt = System.currentTimeMillis();
+        job.expiresAtNanos = System.nanoTime() + job.ttlNanos;
+        active--;
+        // Se vuelve a insertar para que el orden del mapa siga el de expiración
+        JOBS.remove(id);
+        JOBS.put(id, job);
+        return job;
+    }
+
+    private static void evictExpired(long now) {
+        Iterator<Job> iterator = JOBS.values().iterator();
+        while (iterator.hasNext()) {
+            Job job = iterator.next();
+            // Los trabajos sin terminar no expiran; los terminados están en orden de expiración
+            if (job.expiresAtNanos == 0L) {
+                continue;
+            }
+            if (job.expiresAtNanos - now > 0) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+
+    private static final class Job {
+        final long ttlNanos;
+        final long submittedAt;
+        String status = PENDING;
+        Long startedAt;
+        Long finishedAt;
+        long expiresAtNanos;
+        byte[] result;
+        String errorType;
+        String errorDescription;
+
+        Job(long ttlNanos, long submittedAt) {
+            this.ttlNanos = ttlNanos;
+            this.submittedAt = submittedAt;
+        }
+    }
+}
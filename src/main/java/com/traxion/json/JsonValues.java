@@ -0,0 +1,121 @@
+package com.traxion.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Utilidades comunes para los transformadores Java basados en Jackson streaming.
+ *
+ * Los valores se leen a tipos Java simples (Map, List, String, Number, Boolean) y
+ * los números decimales se conservan como BigDecimal para no alterar su
+ * representación al volver a escribirlos.
+ */
+public final class JsonValues {
+
+    /** Fábrica compartida; es thread-safe una vez configurada. */
+    public static final JsonFactory FACTORY = new JsonFactory();
+
+    private JsonValues() {
+    }
+
+    /**
+     * Crea un parser sobre el payload tal como llega desde DataWeave ({@code payload.^raw}).
+     *
+     * @param source InputStream, byte[], Reader o cualquier objeto cuyo toString sea JSON
+     */
+    public static JsonParser parser(Object source) throws IOException {
+        if (source instanceof InputStream) {
+            return FACTORY.createParser((InputStream) source);
+        }
+        if (source instanceof byte[]) {
+            return FACTORY.createParser(new ByteArrayInputStream((byte[]) source));
+        }
+        if (source instanceof Reader) {
+            return FACTORY.createParser((Reader) source);
+        }
+        String text = source == null ? "null" : source.toString();
+        return FACTORY.createParser(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Lee el valor en el token actual del parser, incluyendo objetos y arreglos anidados.
+     */
+    public static Object read(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == null) {
+            return null;
+        }
+        switch (token) {
+            case START_OBJECT:
+                Map<String, Object> map = new LinkedHashMap<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+                    map.put(field, read(parser));
+                }
+                return map;
+            case START_ARRAY:
+                List<Object> list = new ArrayList<>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    list.add(read(parser));
+                }
+                return list;
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return parser.getNumberValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDecimalValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Escribe un valor leído con {@link #read(JsonParser)} (o equivalente).
+     */
+    @SuppressWarnings("unchecked")
+    public static void write(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Map) {
+            generator.writeStartObject();
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                generator.writeFieldName(entry.getKey());
+                write(generator, entry.getValue());
+            }
+            generator.writeEndObject();
+        } else if (value instanceof List) {
+            generator.writeStartArray();
+            for (Object item : (List<Object>) value) {
+                write(generator, item);
+            }
+            generator.writeEndArray();
+        } else if (value instanceof BigDecimal) {
+            generator.writeNumber((BigDecimal) value);
+        } else if (value instanceof Number) {
+            generator.writeNumber(value.toString());
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+}
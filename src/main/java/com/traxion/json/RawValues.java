@@ -0,0 +1,104 @@
+package com.traxion.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Conversión de los valores que llegan desde DataWeave a las clases Java: el
+ * {@code payload.^raw}, las propiedades leídas con {@code p(...)} (siempre texto) y
+ * los mapas de configuración que reciben los métodos {@code configure}.
+ */
+public final class RawValues {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private RawValues() {
+    }
+
+    /**
+     * Bytes del payload tal como llega ({@code payload.^raw}). Un InputStream se lee
+     * completo y se cierra; cualquier otro objeto se toma como texto UTF-8.
+     *
+     * @param description qué se está leyendo, para el mensaje de error
+     * @return los bytes, o un arreglo vacío si el valor es null
+     */
+    public static byte[] toBytes(Object value, String description) {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        if (value instanceof InputStream) {
+            try (InputStream in = (InputStream) value) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(BUFFER_SIZE);
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                return out.toByteArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error leyendo " + description, e);
+            }
+        }
+        return value.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return el número, o {@code defaultValue} si el valor es null o texto vacío
+     * @throws NumberFormatException si el texto no es un número
+     */
+    public static long toLong(Object value, long defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        String text = value.toString().trim();
+        return text.isEmpty() ? defaultValue : Long.parseLong(text);
+    }
+
+    /**
+     * @return el número, o {@code defaultValue} si el valor es null o texto vacío
+     * @throws NumberFormatException si el texto no es un número
+     */
+    public static int toInt(Object value, int defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        String text = value.toString().trim();
+        return text.isEmpty() ? defaultValue : Integer.parseInt(text);
+    }
+
+    /**
+     * @return el número, o {@code defaultValue} si el valor es null o texto vacío
+     * @throws NumberFormatException si el texto no es un número
+     */
+    public static double toDouble(Object value, double defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        String text = value.toString().trim();
+        return text.isEmpty() ? defaultValue : Double.parseDouble(text);
+    }
+
+    /**
+     * @param settings mapa de configuración; puede ser null
+     * @return el valor de la opción, o null si no está
+     */
+    public static Object setting(Map<String, Object> settings, String name) {
+        return settings == null ? null : settings.get(name);
+    }
+}
@@ -0,0 +1,280 @@
+package com.traxion.logging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Resumen de payload para los loggers de los flujos.
+ *
+ * Reemplaza los {@code <logger message="#[payload]"/>}: en lugar de serializar el
+ * payload completo escribe tipo, tamaño y, solo en las peticiones muestreadas, los
+ * primeros caracteres o una huella SHA-256. Como el logger de Mule solo evalúa el
+ * mensaje si su categoría está habilitada, con {@code com.traxion.payload} por
+ * arriba de INFO no se hace ningún trabajo.
+ *
+ * Las reglas van en una sola propiedad, separadas por coma, con el formato
+ * {@code flujo=modo/bytes/muestreo}. El flujo puede ser {@code *}. Modos:
+ * <ul>
+ * <li>{@code summary}: tipo, tamaño y los primeros {@code bytes} del payload.</li>
+ * <li>{@code hash}: tipo, tamaño y SHA-256 de los primeros {@code bytes}.</li>
+ * <li>{@code full}: el payload completo, como antes (solo para diagnóstico).</li>
+ * <li>{@code off}: solo el nombre del flujo.</li>
+ * </ul>
+ *
+ * <pre>
+ * log.payload.rules=*=summary/512/0.1, orchestrator-kafka-wmsby-by-to-oms-operations-article-inventory=hash/4096/0.01
+ * </pre>
+ *
+ * Los streams solo se leen si permiten {@code mark/reset} (streams repetibles de
+ * Mule); un stream no repetible se reporta sin leerlo para no consumir el payload.
+ *
+ * Uso desde el logger:
+ *
+ * <pre>
+ * message="#[java!com::traxion::logging::PayloadLog::summary('orchestrator-pisa-to-oms', payload.^raw, p('log.payload.rules'))]"
+ * </pre>
+ */
+public class PayloadLog {
+
+    private static final String ANY = "*";
+    private static final String SUMMARY = "summary";
+    private static final String HASH = "hash";
+    private static final String FULL = "full";
+    private static final String OFF = "off";
+
+    private static final Rule DEFAULT_RULE = new Rule(ANY, SUMMARY, 512, 0.1);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // Última configuración leída; se vuelve a interpretar solo cuando cambia el texto
+    private static volatile Rules rules = new Rules("", Collections.<Rule>emptyList());
+
+    private PayloadLog() {
+    }
+
+    /**
+     * @param payload {@code payload.^raw} del flujo
+     * @param ruleSpec reglas {@code flujo=modo/bytes/muestreo} separadas por coma
+     * @return mensaje para el logger
+     */
+    public static String summary(String flow, Object payload, String ruleSpec) {
+        Rule rule = rules(ruleSpec).match(flow);
+        StringBuilder message = new StringBuilder(128).append("flow=").append(flow);
+        if (OFF.equals(rule.mode)) {
+            return message.toString();
+        }
+        if (FULL.equals(rule.mode)) {
+            return message.append(" payload=").append(full(payload)).toString();
+        }
+        message.append(" type=").append(type(payload));
+        boolean sampled = rule.sampleRate >= 1.0
+                || (rule.sampleRate > 0.0 && ThreadLocalRandom.current().nextDouble() < rule.sampleRate);
+        if (!sampled || rule.maxBytes <= 0) {
+            return appendSize(message, payload).toString();
+        }
+        Prefix prefix = prefix(payload, rule.maxBytes);
+        if (prefix == null) {
+            return appendSize(message, payload).toString();
+        }
+        message.append(" size=").append(prefix.size >= 0 ? Long.toString(prefix.size)
+                : prefix.truncated ? ">" + prefix.bytes.length : Integer.toString(prefix.bytes.length));
+        if (HASH.equals(rule.mode)) {
+            message.append(prefix.truncated ? " sha256_prefix=" : " sha256=").append(sha256(prefix.bytes));
+        } else {
+            message.append(" payload=").append(new String(prefix.bytes, StandardCharsets.UTF_8));
+            if (prefix.truncated) {
+                message.append("...");
+            }
+        }
+        return message.toString();
+    }
+
+    private static StringBuilder appendSize(StringBuilder message, Object payload) {
+        if (payload instanceof byte[]) {
+            message.append(" size=").append(((byte[]) payload).length);
+        } else if (payload instanceof CharSequence) {
+            message.append(" size=").append(((CharSequence) payload).length());
+        } else if (payload instanceof Collection) {
+            message.append(" items=").append(((Collection<?>) payload).size());
+        } else if (payload instanceof Map) {
+            message.append(" entries=").append(((Map<?, ?>) payload).size());
+        }
+        return message;
+    }
+
+    private static String type(Object payload) {
+        if (payload == null) {
+            return "null";
+        }
+        if (payload instanceof byte[]) {
+            return "bytes";
+        }
+        if (payload instanceof CharSequence) {
+            return "string";
+        }
+        if (payload instanceof InputStream) {
+            return "stream";
+        }
+        return payload.getClass().getSimpleName();
+    }
+
+    /**
+     * Primeros {@code maxBytes} del payload; null si no se pueden leer sin consumirlo.
+     */
+    private static Prefix prefix(Object payload, int maxBytes) {
+        if (payload instanceof byte[]) {
+            byte[] bytes = (byte[]) payload;
+            int length = Math.min(bytes.length, maxBytes);
+            byte[] copy = new byte[length];
+            System.arraycopy(bytes, 0, copy, 0, length);
+            return new Prefix(copy, bytes.length, bytes.length > length);
+        }
+        if (payload instanceof CharSequence) {
+            CharSequence text = (CharSequence) payload;
+            CharSequence head = text.length() > maxBytes ? text.subSequence(0, maxBytes) : text;
+            return new Prefix(head.toString().getBytes(StandardCharsets.UTF_8), text.length(), text.length() > maxBytes);
+        }
+        if (payload instanceof InputStream) {
+            InputStream in = (InputStream) payload;
+            if (!in.markSupported()) {
+                return null;
+            }
+            try {
+                in.mark(maxBytes + 1);
+                ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(maxBytes + 1, BUFFER_SIZE));
+                byte[] buffer = new byte[BUFFER_SIZE];
+                long remaining = maxBytes + 1L;
+                int read;
+                while (remaining > 0 && (read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                    out.write(buffer, 0, read);
+                    remaining -= read;
+                }
+                in.reset();
+                byte[] bytes = out.toByteArray();
+                boolean truncated = bytes.length > maxBytes;
+                if (truncated) {
+                    byte[] copy = new byte[maxBytes];
+                    System.arraycopy(bytes, 0, copy, 0, maxBytes);
+                    bytes = copy;
+                }
+                return new Prefix(bytes, truncated ? -1 : bytes.length, truncated);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static String full(Object payload) {
+        if (payload instanceof byte[]) {
+            return new String((byte[]) payload, StandardCharsets.UTF_8);
+        }
+        if (payload instanceof InputStream) {
+            Prefix prefix = prefix(payload, Integer.MAX_VALUE - 8);
+            return prefix == null ? "<stream>" : new String(prefix.bytes, StandardCharsets.UTF_8);
+        }
+        return String.valueOf(payload);
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            char[] hex = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hex[i * 2] = HEX[(digest[i] >> 4) & 0xf];
+                hex[i * 2 + 1] = HEX[digest[i] & 0xf];
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private static Rules rules(String spec) {
+        String text = spec == null ? "" : spec;
+        Rules current = rules;
+        if (!current.spec.equals(text)) {
+            current = new Rules(text, parse(text));
+            rules = current;
+        }
+        return current;
+    }
+
+    private static List<Rule> parse(String spec) {
+        List<Rule> parsed = new ArrayList<>();
+        for (String item : spec.split(",")) {
+            String entry = item.trim();
+            int eq = entry.lastIndexOf('=');
+            if (eq <= 0) {
+                continue;
+            }
+            String[] values = entry.substring(eq + 1).trim().split("/");
+            String mode = values[0].trim().toLowerCase();
+            int maxBytes = values.length > 1 ? Integer.parseInt(values[1].trim()) : DEFAULT_RULE.maxBytes;
+            double sampleRate = values.length > 2 ? Double.parseDouble(values[2].trim()) : DEFAULT_RULE.sampleRate;
+            parsed.add(new Rule(entry.substring(0, eq).trim(), mode, maxBytes, sampleRate));
+        }
+        return parsed;
+    }
+
+    private static final class Rules {
+        final String spec;
+        final List<Rule> list;
+
+        Rules(String spec, List<Rule> list) {
+            this.spec = spec;
+            this.list = list;
+        }
+
+        Rule match(String flow) {
+            Rule fallback = DEFAULT_RULE;
+            for (Rule rule : list) {
+                if (rule.flow.equals(flow)) {
+                    return rule;
+                }
+                if (ANY.equals(rule.flow) && fallback == DEFAULT_RULE) {
+                    fallback = rule;
+                }
+            }
+            return fallback;
+        }
+    }
+
+    private static final class Rule {
+        final String flow;
+        final String mode;
+        final int maxBytes;
+        final double sampleRate;
+
+        Rule(String flow, String mode, int maxBytes, double sampleRate) {
+            this.flow = flow;
+            this.mode = mode;
+            this.maxBytes = maxBytes;
+            this.sampleRate = sampleRate;
+        }
+    }
+
+    private static final class Prefix {
+        final byte[] bytes;
+        final long size;
+        final boolean truncated;
+
+        Prefix(byte[] bytes, long size, boolean truncated) {
+            this.bytes = bytes;
+            this.size = size;
+            this.truncated = truncated;
+        }
+    }
+}
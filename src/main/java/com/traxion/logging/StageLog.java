@@ -0,0 +1,92 @@
+package com.traxion.logging;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+
+/**
+ * Registro de etapas de un flujo con su duración, para análisis de latencia desde los logs.
+ *
+ * Cada etapa (la petición completa o una llamada a una dependencia) escribe una línea
+ * en la categoría {@code com.traxion.stage} con los campos {@code flow},
+ * {@code stage}, {@code elapsedMs} y {@code payloadSize} en el contexto del log;
+ * el layout JSON de {@code log4j2.xml} los escribe como campos junto al
+ * {@code correlationId} que ya pone Mule. Los campos solo viven durante la llamada
+ * al logger y se quitan al terminar.
+ *
+ * Si la categoría está por arriba de INFO solo se calcula el tiempo transcurrido.
+ *
+ * {@code payloadSize} es la longitud en bytes de un {@code byte[]} o en caracteres
+ * de un texto; para streams se omite porque medirlos obligaría a leerlos.
+ *
+ * Uso desde DataWeave:
+ *
+ * <pre>
+ * import java!com::traxion::logging::StageLog
+ * ---
+ * StageLog::end(flow.name, vars.bulkhead, vars.bulkheadStartNanos, payload.^raw)
+ * </pre>
+ */
+public class StageLog {
+
+    private static final Logger LOGGER = LogManager.getLogger("com.traxion.stage");
+
+    private static final String FLOW = "flow";
+    private static final String STAGE = "stage";
+    private static final String ELAPSED_MS = "elapsedMs";
+    private static final String PAYLOAD_SIZE = "payloadSize";
+
+    private StageLog() {
+    }
+
+    /**
+     * @return marca de tiempo de inicio para {@link #end}
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Cierra una etapa y la registra.
+     *
+     * @param startNanos valor devuelto por {@link #start()}; si falta la etapa se registra con 0 ms
+     * @param payload {@code payload.^raw} al terminar la etapa (opcional)
+     * @return milisegundos transcurridos
+     */
+    public static long end(String flow, String stage, Object startNanos, Object payload) {
+        long now = System.nanoTime();
+        long elapsed = startNanos instanceof Number
+                ? TimeUnit.NANOSECONDS.toMillis(now - ((Number) startNanos).longValue()) : 0L;
+        if (!LOGGER.isInfoEnabled()) {
+            return elapsed;
+        }
+        long size = size(payload);
+        ThreadContext.put(FLOW, flow);
+        ThreadContext.put(STAGE, stage);
+        ThreadContext.put(ELAPSED_MS, Long.toString(elapsed));
+        if (size >= 0) {
+            ThreadContext.put(PAYLOAD_SIZE, Long.toString(size));
+        }
+        try {
+            LOGGER.info("stage {} {} ms", stage, elapsed);
+        } finally {
+            ThreadContext.remove(FLOW);
+            ThreadContext.remove(STAGE);
+            ThreadContext.remove(ELAPSED_MS);
+            ThreadContext.remove(PAYLOAD_SIZE);
+        }
+        return elapsed;
+    }
+
+    private static long size(Object payload) {
+        if (payload instanceof byte[]) {
+            return ((byte[]) payload).length;
+        }
+        if (payload instanceof CharSequence) {
+            return ((CharSequence) payload).length();
+        }
+        return -1L;
+    }
+}
@@ -0,0 +1,211 @@
+package com.traxion.messaging;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+/**
+ * Sobre canónico de los eventos que se publican en Kafka y Pub/Sub.
+ *
+ * Escribe directamente a bytes el sobre
+ * {@code {"payload":...,"origin_timestamp":...,"event":...,"publish_at":...,"project":...,"company":...,"version":...}}
+ * alrededor del payload ya serializado, sin volver a parsearlo ni serializarlo.
+ * {@code origin_timestamp} y {@code publish_at} comparten una sola lectura del reloj.
+ * El armado se hace en un buffer reutilizable por hilo; solo se copia el resultado
+ * final que se entrega al publicador.
+ *
+ * Uso desde Mule:
+ *
+ * <pre>
+ * &lt;set-payload value="#[java!com::traxion::messaging::EventEnvelope::encode(payload.^raw, 'LOAD_EVENTS', 'PISA', 'PISA', '1')]" mimeType="application/json"/&gt;
+ * </pre>
+ */
+public class EventEnvelope {
+
+    private static final byte[] PAYLOAD = ascii("{\"payload\":");
+    private static final byte[] ORIGIN_TIMESTAMP = ascii(",\"origin_timestamp\":");
+    private static final byte[] EVENT = ascii(",\"event\":");
+    private static final byte[] PUBLISH_AT = ascii(",\"publish_at\":");
+    private static final byte[] PROJECT = ascii(",\"project\":");
+    private static final byte[] COMPANY = ascii(",\"company\":");
+    private static final byte[] VERSION = ascii(",\"version\":");
+    private static final byte[] NULL = ascii("null");
+    private static final byte END = '}';
+
+    private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+
+    /** Buffers más grandes que esto no se conservan entre mensajes. */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<Buffer> BUFFERS = ThreadLocal.withInitial(Buffer::new);
+
+    // Los valores de event/project/company/version son pocos y constantes por flujo
+    private static final Map<String, byte[]> QUOTED = new ConcurrentHashMap<>();
+
+    private EventEnvelope() {
+    }
+
+    /**
+     * Arma el sobre del evento.
+     *
+     * @param payload payload ya serializado como JSON (InputStream, byte[] o String)
+     * @param event valor de {@code event}
+     * @param project valor de {@code project}
+     * @param company valor de {@code company}
+     * @param version valor de {@code version}
+     * @return sobre en JSON UTF-8
+     */
+    public static byte[] encode(Object payload, String event, String project, String company, String version) {
+        long now = System.currentTimeMillis();
+        Buffer buffer = BUFFERS.get();
+        buffer.reset();
+        buffer.write(PAYLOAD);
+        writePayload(buffer, payload);
+        buffer.write(ORIGIN_TIMESTAMP);
+        buffer.writeLong(now);
+        buffer.write(EVENT);
+        buffer.write(quoted(event));
+        buffer.write(PUBLISH_AT);
+        buffer.writeLong(now);
+        buffer.write(PROJECT);
+        buffer.write(quoted(project));
+        buffer.write(COMPANY);
+        buffer.write(quoted(company));
+        buffer.write(VERSION);
+        buffer.write(quoted(version));
+        buffer.write(END);
+        byte[] result = buffer.toByteArray();
+        buffer.release();
+        return result;
+    }
+
+    private static void writePayload(Buffer buffer, Object payload) {
+        int start = buffer.size();
+        if (payload instanceof byte[]) {
+            buffer.write((byte[]) payload);
+        } else if (payload instanceof InputStream) {
+            try {
+                buffer.readFrom((InputStream) payload);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error leyendo payload del evento", e);
+            }
+        } else if (payload != null) {
+            buffer.write(payload.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        buffer.trimPayload(start);
+        if (buffer.size() == start) {
+            buffer.write(NULL);
+        }
+    }
+
+    private static byte[] quoted(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        byte[] quoted = QUOTED.get(value);
+        if (quoted == null) {
+            byte[] escaped = JsonStringEncoder.getInstance().quoteAsUTF8(value);
+            quoted = new byte[escaped.length + 2];
+            quoted[0] = '"';
+            System.arraycopy(escaped, 0, quoted, 1, escaped.length);
+            quoted[quoted.length - 1] = '"';
+            QUOTED.putIfAbsent(value, quoted);
+        }
+        return quoted;
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Arreglo de bytes creciente, sin sincronización (uno por hilo).
+     */
+    private static final class Buffer {
+        private byte[] bytes = new byte[INITIAL_BUFFER_SIZE];
+        private int size;
+
+        void reset() {
+            size = 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void write(byte value) {
+            ensure(1);
+            bytes[size++] = value;
+        }
+
+        void write(byte[] values) {
+            ensure(values.length);
+            System.arraycopy(values, 0, bytes, size, values.length);
+            size += values.length;
+        }
+
+        void writeLong(long value) {
+            write(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+        }
+
+        void readFrom(InputStream in) throws IOException {
+            int read;
+            do {
+                ensure(INITIAL_BUFFER_SIZE / 4);
+                read = in.read(bytes, size, bytes.length - size);
+                if (read > 0) {
+                    size += read;
+                }
+            } while (read != -1);
+        }
+
+        /**
+         * Quita BOM y espacios al inicio y al final del payload escrito desde {@code start}.
+         */
+        void trimPayload(int start) {
+            int from = start;
+            if (size - from >= 3 && (bytes[from] & 0xff) == 0xef && (bytes[from + 1] & 0xff) == 0xbb
+                    && (bytes[from + 2] & 0xff) == 0xbf) {
+                from += 3;
+            }
+            while (from < size && isWhitespace(bytes[from])) {
+                from++;
+            }
+            int to = size;
+            while (to > from && isWhitespace(bytes[to - 1])) {
+                to--;
+            }
+            if (from > start) {
+                System.arraycopy(bytes, from, bytes, start, to - from);
+            }
+            size = start + (to - from);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        void release() {
+            if (bytes.length > MAX_RETAINED_BUFFER_SIZE) {
+                bytes = new byte[INITIAL_BUFFER_SIZE];
+            }
+            size = 0;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+
+        private static boolean isWhitespace(byte value) {
+            return value == ' ' || value == '\n' || value == '\r' || value == '\t';
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.traxion.messaging;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.traxion.json.RawValues;
+
+/**
+ * Presupuesto de publicaciones pendientes por publicador (kafka, pubsub).
+ *
+ * Cada publicación toma un permiso antes de llamar al conector y lo libera al
+ * terminar (con o sin error). Cuando el publicador ya tiene el máximo de
+ * publicaciones en curso, {@link #tryAcquire(String, Object)} regresa false y el
+ * flujo responde 429 con un Retry-After calculado a partir del ritmo de drenado
+ * observado, en lugar de encolar la petición hasta que expire el listener.
+ *
+ * Métodos estáticos para invocarse desde DataWeave:
+ * java!com::traxion::messaging::PublishBudget::tryAcquire(vars.publisher, 200)
+ */
+public class PublishBudget {
+
+    /** Peso de la muestra más reciente en el promedio móvil del intervalo de drenado. */
+    private static final double EWMA_ALPHA = 0.2;
+
+    /** Límite por omisión cuando la propiedad no está configurada. */
+    private static final int DEFAULT_MAX_OUTSTANDING = 200;
+
+    private static final Map<String, PublishBudget> BUDGETS = new ConcurrentHashMap<>();
+
+    private final String publisher;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile int maxOutstanding = DEFAULT_MAX_OUTSTANDING;
+
+    // Intervalo promedio entre publicaciones terminadas (nanosegundos)
+    private long lastReleaseNanos;
+    private double drainIntervalNanos;
+
+    private PublishBudget(String publisher) {
+        this.publisher = publisher;
+    }
+
+    private static PublishBudget of(String publisher) {
+        return BUDGETS.computeIfAbsent(publisher, PublishBudget::new);
+    }
+
+    /**
+     * Intenta reservar un permiso de publicación.
+     *
+     * @param publisher nombre del publicador (kafka, pubsub)
+     * @param maxOutstanding máximo de publicaciones en curso; null usa el valor por omisión
+     * @return true si la publicación puede continuar
+     */
+    public static boolean tryAcquire(String publisher, Object maxOutstanding) {
+        PublishBudget budget = of(publisher);
+        budget.maxOutstanding = RawValues.toInt(maxOutstanding, DEFAULT_MAX_OUTSTANDING);
+        while (true) {
+            int current = budget.outstanding.get();
+            if (current >= budget.maxOutstanding) {
+                budget.rejected.incrementAndGet();
+                return false;
+            }
+            if (budget.outstanding.compareAndSet(current, current + 1)) {
+                budget.acquired.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libera un permiso y actualiza el ritmo de drenado.
+     *
+     * @return publicaciones que siguen en curso
+     */
+    public static int release(String publisher) {
+        PublishBudget budget = of(publisher);
+        int remaining = budget.outstanding.updateAndGet(current -> current > 0 ? current - 1 : 0);
+        long now = System.nanoTime();
+        synchronized (budget) {
+            if (budget.lastReleaseNanos != 0L) {
+                long interval = now - budget.lastReleaseNanos;
+                budget.drainIntervalNanos = budget.drainIntervalNanos == 0.0
+                        ? interval
+                        : budget.drainIntervalNanos * (1 - EWMA_ALPHA) + interval * EWMA_ALPHA;
+            }
+            budget.lastReleaseNanos = now;
+        }
+        return remaining;
+    }
+
+    /**
+     * Segundos sugeridos para el encabezado Retry-After: tiempo estimado para drenar
+     * las publicaciones en curso al ritmo observado, acotado a [1, maxSeconds].
+     */
+    public static int retryAfterSeconds(String publisher, Object maxSeconds) {
+        PublishBudget budget = of(publisher);
+        int cap = Math.max(1, RawValues.toInt(maxSeconds, 30));
+        double interval;
+        synchronized (budget) {
+            if (budget.lastReleaseNanos == 0L) {
+                return cap;
+            }
+            // Si el publicador dejó de drenar, el tiempo desde la última liberación domina
+            long sinceLast = System.nanoTime() - budget.lastReleaseNanos;
+            interval = Math.max(budget.drainIntervalNanos, sinceLast);
+        }
+        double seconds = budget.outstanding.get() * interval / TimeUnit.SECONDS.toNanos(1);
+        return (int) Math.max(1, Math.min(cap, Math.ceil(seconds)));
+    }
+
+    /**
+     * Estado del presupuesto para monitoreo.
+     */
+    public static Map<String, Object> stats(String publisher) {
+        PublishBudget budget = of(publisher);
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("publisher", budget.publisher);
+        stats.put("outstanding", budget.outstanding.get());
+        stats.put("max_outstanding", budget.maxOutstanding);
+        stats.put("acquired", budget.acquired.get());
+        stats.put("rejected", budget.rejected.get());
+        return stats;
+    }
+}
@@ -0,0 +1,242 @@
+package com.traxion.metrics;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.traxion.admission.TokenBuckets;
+import com.traxion.json.RawValues;
+import com.traxion.messaging.PublishBudget;
+import com.traxion.resilience.Bulkheads;
+
+/**
+ * Métricas de peticiones y dependencias en formato de texto de Prometheus.
+ *
+ * Por ruta se cuentan peticiones por código de estado y se lleva un histograma de
+ * latencia; dentro de cada ruta, un histograma por dependencia (process.pharma.api,
+ * system.wms, system.tep, grpc.webhook, kafka, pubsub) con el tiempo de cada llamada.
+ * Los histogramas usan cubetas fijas de {@link LongAdder}, así que registrar una
+ * muestra no toma candados aunque muchos hilos registren a la vez.
+ *
+ * La ruta es la plantilla del recurso de la RAML, tomada del nombre del flujo de
+ * APIkit que atendió la petición ({@code get:\tms\carta-porte\jobs\(job_id):...}
+ * queda como {@code GET /tms/carta-porte/jobs/{job_id}}), así los identificadores
+ * no generan rutas nuevas. Las peticiones que no llegan a un flujo de APIkit
+ * (rechazadas en admisión, repetidas por idempotencia o sin recurso) se cuentan como
+ * {@value #UNROUTED}. Como resguardo, a partir de {@code maxRoutes} rutas distintas
+ * las nuevas se cuentan como {@code other}.
+ *
+ * Uso desde DataWeave:
+ *
+ * <pre>
+ * import java!com::traxion::metrics::Metrics
+ * ---
+ * Metrics::request(vars.metricsRoute, vars.httpStatus default 200, vars.requestStartNanos)
+ * </pre>
+ */
+public class Metrics {
+
+    /** Límites superiores de las cubetas en milisegundos; la última cubeta es +Inf. */
+    private static final long[] BUCKETS_MILLIS = {
+            5L, 10L, 25L, 50L, 100L, 250L, 500L, 1000L, 2500L, 5000L, 10000L, 30000L, 60000L, 180000L
+    };
+
+    private static final String OTHER = "other";
+
+    /** Ruta de las peticiones que no llegaron a un flujo de APIkit. */
+    public static final String UNROUTED = "unrouted";
+
+    private static final int DEFAULT_MAX_ROUTES = 100;
+
+    private static final Map<String, Route> ROUTES = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Nombre de ruta para las métricas a partir del flujo de APIkit, p. ej.
+     * {@code patch:\oms\orders\REMISSION\(tracking_id):application\json:traxion-pharma-api-config}
+     * queda como {@code PATCH /oms/orders/REMISSION/{tracking_id}}.
+     *
+     * @param flowName {@code flow.name} dentro del flujo de APIkit
+     */
+    public static String route(String flowName, Object maxRoutes) {
+        if (flowName == null || flowName.indexOf(':') < 0) {
+            return UNROUTED;
+        }
+        String[] parts = flowName.split(":");
+        StringBuilder route = new StringBuilder(64).append(parts[0].toUpperCase(Locale.ROOT)).append(' ');
+        String resource = parts[1].replace('\\', '/').replace('(', '{').replace(')', '}');
+        route.append(resource.isEmpty() ? "/" : resource);
+        String name = route.toString();
+        int limit = (int) RawValues.toLong(maxRoutes, DEFAULT_MAX_ROUTES);
+        return ROUTES.containsKey(name) || ROUTES.size() < limit ? name : OTHER;
+    }
+
+    /**
+     * Registra una petición terminada.
+     *
+     * @param startNanos valor de {@code StageLog::start()} al recibir la petición
+     * @return milisegundos transcurridos
+     */
+    public static long request(String route, Object status, Object startNanos) {
+        long nanos = elapsedNanos(startNanos);
+        Route metrics = of(route);
+        metrics.latency.record(nanos);
+        metrics.statuses.computeIfAbsent((int) RawValues.toLong(status, 200), key -> new LongAdder()).increment();
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * Registra una llamada a una dependencia hecha por la ruta.
+     *
+     * @return milisegundos transcurridos
+     */
+    public static long downstream(String route, String dependency, Object startNanos) {
+        long nanos = elapsedNanos(startNanos);
+        of(route).dependencies.computeIfAbsent(dependency == null ? "unknown" : dependency,
+                key -> new Histogram()).record(nanos);
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * Todas las métricas en formato de texto de Prometheus (versión 0.0.4), incluyendo
+     * la ocupación de los compartimentos y de los presupuestos de publicación y los
+     * contadores del control de admisión.
+     *
+     * @param publishers publicadores a reportar, p. ej. {@code ["kafka", "pubsub"]}
+     */
+    public static String scrape(List<String> publishers) {
+        StringBuilder out = new StringBuilder(8192);
+
+        header(out, "traxion_http_requests_total", "counter", "Peticiones por ruta y codigo de estado.");
+        for (Map.Entry<String, Route> route : ROUTES.entrySet()) {
+            for (Map.Entry<Integer, LongAdder> status : route.getValue().statuses.entrySet()) {
+                out.append("traxion_http_requests_total{route=\"").append(escape(route.getKey()))
+                        .append("\",status=\"").append(status.getKey()).append("\"} ")
+                        .append(status.getValue().sum()).append('\n');
+            }
+        }
+
+        header(out, "traxion_http_request_duration_seconds", "histogram", "Latencia de las peticiones por ruta.");
+        for (Map.Entry<String, Route> route : ROUTES.entrySet()) {
+            route.getValue().latency.write(out, "traxion_http_request_duration_seconds",
+                    "route=\"" + escape(route.getKey()) + "\"");
+        }
+
+        header(out, "traxion_downstream_duration_seconds", "histogram",
+                "Latencia de las llamadas a dependencias por ruta.");
+        for (Map.Entry<String, Route> route : ROUTES.entrySet()) {
+            for (Map.Entry<String, Histogram> dependency : route.getValue().dependencies.entrySet()) {
+                dependency.getValue().write(out, "traxion_downstream_duration_seconds",
+                        "route=\"" + escape(route.getKey()) + "\",dependency=\"" + escape(dependency.getKey()) + "\"");
+            }
+        }
+
+        List<Map<String, Object>> bulkheads = Bulkheads.stats();
+        header(out, "traxion_bulkhead_in_flight", "gauge", "Llamadas en curso por compartimento.");
+        for (Map<String, Object> bulkhead : bulkheads) {
+            sample(out, "traxion_bulkhead_in_flight", "bulkhead", bulkhead.get("bulkhead"), bulkhead.get("in_flight"));
+        }
+        header(out, "traxion_bulkhead_rejected_total", "counter", "Llamadas rechazadas por compartimento lleno.");
+        for (Map<String, Object> bulkhead : bulkheads) {
+            sample(out, "traxion_bulkhead_rejected_total", "bulkhead", bulkhead.get("bulkhead"), bulkhead.get("rejected"));
+        }
+
+        header(out, "traxion_ratelimit_requests_total", "counter",
+                "Peticiones admitidas y rechazadas por cliente y regla de admision.");
+        for (Map<String, Object> bucket : TokenBuckets.stats()) {
+            String labels = "client_id=\"" + escape(String.valueOf(bucket.get("client_id")))
+                    + "\",rule=\"" + escape(String.valueOf(bucket.get("rule"))) + "\",result=\"";
+            out.append("traxion_ratelimit_requests_total{").append(labels).append("allowed\"} ")
+                    .append(bucket.get("allowed")).append('\n');
+            out.append("traxion_ratelimit_requests_total{").append(labels).append("rejected\"} ")
+                    .append(bucket.get("rejected")).append('\n');
+        }
+
+        if (publishers != null) {
+            header(out, "traxion_publish_outstanding", "gauge", "Publicaciones pendientes de confirmar por publicador.");
+            for (String publisher : publishers) {
+                sample(out, "traxion_publish_outstanding", "publisher", publisher,
+                        PublishBudget.stats(publisher).get("outstanding"));
+            }
+            header(out, "traxion_publish_rejected_total", "counter", "Publicaciones rechazadas por presupuesto agotado.");
+            for (String publisher : publishers) {
+                sample(out, "traxion_publish_rejected_total", "publisher", publisher,
+                        PublishBudget.stats(publisher).get("rejected"));
+            }
+        }
+        return out.toString();
+    }
+
+    private static Route of(String route) {
+        return ROUTES.computeIfAbsent(route == null ? OTHER : route, key -> new Route());
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String label, Object labelValue, Object value) {
+        out.append(name).append('{').append(label).append("=\"").append(escape(String.valueOf(labelValue)))
+                .append("\"} ").append(value == null ? "0" : value.toString()).append('\n');
+    }
+
+    private static String escape(String value) {
+        if (value.indexOf('\\') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static long elapsedNanos(Object startNanos) {
+        return startNanos instanceof Number ? Math.max(0L, System.nanoTime() - ((Number) startNanos).longValue()) : 0L;
+    }
+
+    private static final class Route {
+        final Histogram latency = new Histogram();
+        final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        final Map<String, Histogram> dependencies = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Histograma de cubetas fijas; cada cubeta cuenta solo sus muestras y la salida
+     * acumula al escribir, como espera Prometheus.
+     */
+    private static final class Histogram {
+        final LongAdder[] buckets = new LongAdder[BUCKETS_MILLIS.length + 1];
+        final LongAdder sumNanos = new LongAdder();
+
+        Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos) {
+            int index = 0;
+            while (index < BUCKETS_MILLIS.length && nanos > TimeUnit.MILLISECONDS.toNanos(BUCKETS_MILLIS[index])) {
+                index++;
+            }
+            buckets[index].increment();
+            sumNanos.add(nanos);
+        }
+
+        void write(StringBuilder out, String name, String labels) {
+            long cumulative = 0L;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i].sum();
+                out.append(name).append("_bucket{").append(labels).append(",le=\"")
+                        .append(i < BUCKETS_MILLIS.length ? Double.toString(BUCKETS_MILLIS[i] / 1000.0) : "+Inf")
+                        .append("\"} ").append(cumulative).append('\n');
+            }
+            out.append(name).append("_sum{").append(labels).append("} ")
+                    .append(sumNanos.sum() / 1e9).append('\n');
+            out.append(name).append("_count{").append(labels).append("} ").append(cumulative).append('\n');
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.traxion.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Duraciones por etapa de una petición para el header {@code Server-Timing}.
+ *
+ * Con la opción habilitada, {@code traxion-pharma-api-main} crea un acumulador por
+ * petición en {@code vars.serverTiming}; las etapas suman su tiempo al terminar y al
+ * final de la petición se arma el header, p. ej.
+ * {@code admission;dur=0.4, validation;dur=3.1, downstream;dur=212.7;desc="2 calls", total;dur=230.5}.
+ * Las etapas que no ocurrieron no se reportan.
+ *
+ * El acumulador usa contadores atómicos de tamaño fijo, así que las rutas paralelas
+ * (scatter-gather) pueden registrar a la vez. Con la opción deshabilitada la variable
+ * es null y ningún flujo llama a esta clase.
+ *
+ * Uso desde DataWeave:
+ *
+ * <pre>
+ * import java!com::traxion::metrics::ServerTiming
+ * ---
+ * ServerTiming::add(vars.serverTiming, 'downstream', vars.bulkheadStartNanos)
+ * </pre>
+ */
+public class ServerTiming {
+
+    /** Etapas reportadas, en el orden en que salen en el header. */
+    private static final String[] STAGES = {"admission", "validation", "transform", "downstream", "publish"};
+
+    private final AtomicLongArray nanos = new AtomicLongArray(STAGES.length);
+    private final AtomicLongArray counts = new AtomicLongArray(STAGES.length);
+
+    private ServerTiming() {
+    }
+
+    /**
+     * @return acumulador para {@code vars.serverTiming}
+     */
+    public static ServerTiming begin() {
+        return new ServerTiming();
+    }
+
+    /**
+     * Suma a la etapa el tiempo transcurrido desde {@code startNanos}.
+     *
+     * @param timing {@code vars.serverTiming}; si es null no se hace nada
+     * @param stage {@code admission}, {@code validation}, {@code transform},
+     *        {@code downstream} o {@code publish}; otras etapas se ignoran
+     * @param startNanos valor de {@code StageLog::start()} al iniciar la etapa
+     * @return milisegundos transcurridos
+     */
+    public static long add(Object timing, String stage, Object startNanos) {
+        if (!(timing instanceof ServerTiming) || !(startNanos instanceof Number)) {
+            return 0L;
+        }
+        long elapsed = Math.max(0L, System.nanoTime() - ((Number) startNanos).longValue());
+        int index = indexOf(stage);
+        if (index >= 0) {
+            ServerTiming accumulator = (ServerTiming) timing;
+            accumulator.nanos.addAndGet(index, elapsed);
+            accumulator.counts.incrementAndGet(index);
+        }
+        return elapsed / 1_000_000L;
+    }
+
+    /**
+     * Valor del header {@code Server-Timing} con las etapas registradas y el total.
+     *
+     * @param requestStartNanos valor de {@code StageLog::start()} al recibir la petición
+     * @return valor del header, o null si no hay acumulador
+     */
+    public static String header(Object timing, Object requestStartNanos) {
+        if (!(timing instanceof ServerTiming)) {
+            return null;
+        }
+        ServerTiming accumulator = (ServerTiming) timing;
+        StringBuilder header = new StringBuilder(160);
+        for (int i = 0; i < STAGES.length; i++) {
+            long count = accumulator.counts.get(i);
+            if (count == 0) {
+                continue;
+            }
+            appendMetric(header, STAGES[i], accumulator.nanos.get(i));
+            if (count > 1) {
+                header.append(";desc=\"").append(count).append(" calls\"");
+            }
+        }
+        if (requestStartNanos instanceof Number) {
+            appendMetric(header, "total", Math.max(0L, System.nanoTime() - ((Number) requestStartNanos).longValue()));
+        }
+        return header.toString();
+    }
+
+    private static void appendMetric(StringBuilder header, String name, long nanos) {
+        if (header.length() > 0) {
+            header.append(", ");
+        }
+        // Milisegundos con un decimal, sin pasar por String.format
+        long tenths = (nanos + 50_000L) / 100_000L;
+        header.append(name).append(";dur=").append(tenths / 10).append('.').append(tenths % 10);
+    }
+
+    private static int indexOf(String stage) {
+        for (int i = 0; i < STAGES.length; i++) {
+            if (STAGES[i].equals(stage)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
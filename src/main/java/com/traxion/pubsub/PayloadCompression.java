@@ -0,0 +1,137 @@
+package com.traxion.pubsub;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.traxion.json.RawValues;
+
+/**
+ * Compresión gzip de mensajes Pub/Sub por umbral de tamaño.
+ *
+ * Los mensajes que superan el umbral configurado se publican comprimidos con gzip
+ * y con el atributo {@code content_encoding=gzip}; el resto se publica sin cambios
+ * con {@code content_encoding=identity}. Los suscriptores deben usar
+ * {@link #decode(Object, String)} (o su equivalente) según el atributo recibido.
+ *
+ * Todos los métodos son estáticos para poder invocarse desde DataWeave:
+ *
+ * <pre>
+ * %dw 2.0
+ * import java!com::traxion::pubsub::PayloadCompression
+ * output application/java
+ * ---
+ * PayloadCompression::encode(payload.^raw, p('pubsub.compression.threshold.bytes'))
+ * </pre>
+ */
+public class PayloadCompression {
+
+    /** Valor del atributo content_encoding para mensajes comprimidos. */
+    public static final String GZIP = "gzip";
+
+    /** Valor del atributo content_encoding para mensajes sin comprimir. */
+    public static final String IDENTITY = "identity";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private PayloadCompression() {
+    }
+
+    /**
+     * Comprime el mensaje si su tamaño supera el umbral.
+     *
+     * @param message cuerpo del mensaje (String, byte[] o InputStream)
+     * @param thresholdBytes tamaño mínimo en bytes para comprimir; valores menores o
+     *                       iguales a cero deshabilitan la compresión
+     * @return Map con las llaves {@code body} (byte[]) y {@code contentEncoding}
+     */
+    public static Map<String, Object> encode(Object message, Object thresholdBytes) {
+        byte[] raw = toBytes(message);
+        long threshold = RawValues.toLong(thresholdBytes, 0L);
+
+        Map<String, Object> result = new HashMap<>(4);
+        if (threshold > 0 && raw.length >= threshold) {
+            result.put("body", gzip(raw));
+            result.put("contentEncoding", GZIP);
+        } else {
+            result.put("body", raw);
+            result.put("contentEncoding", IDENTITY);
+        }
+        return result;
+    }
+
+    /**
+     * Ayudante para suscriptores: devuelve el cuerpo original como texto UTF-8.
+     *
+     * @param data cuerpo recibido (String, byte[] o InputStream)
+     * @param contentEncoding valor del atributo content_encoding; null o "identity"
+     *                        indican que el mensaje no viene comprimido
+     */
+    public static String decode(Object data, String contentEncoding) {
+        byte[] raw = toBytes(data);
+        if (GZIP.equalsIgnoreCase(contentEncoding) || (contentEncoding == null && isGzip(raw))) {
+            raw = gunzip(raw);
+        }
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Indica si el arreglo inicia con la firma gzip (0x1f 0x8b).
+     */
+    public static boolean isGzip(byte[] data) {
+        return data != null && data.length > 2
+                && (data[0] & 0xff) == 0x1f && (data[1] & 0xff) == 0x8b;
+    }
+
+    static byte[] gzip(byte[] raw) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE)) {
+            gzip.write(raw);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error comprimiendo mensaje Pub/Sub", e);
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] gunzip(byte[] compressed) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed), BUFFER_SIZE)) {
+            return readAll(in, compressed.length * 4);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error descomprimiendo mensaje Pub/Sub", e);
+        }
+    }
+
+    static byte[] toBytes(Object value) {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        if (value instanceof InputStream) {
+            try {
+                return readAll((InputStream) value, BUFFER_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error leyendo mensaje Pub/Sub", e);
+            }
+        }
+        return value.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readAll(InputStream in, int sizeHint) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(BUFFER_SIZE, sizeHint));
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,261 @@
+package com.traxion.resilience;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.traxion.json.RawValues;
+
+/**
+ * Compartimentos (bulkheads) por dependencia externa.
+ *
+ * Cada dependencia (process-pharma-api, system-tep, system-wms, webhook gRPC) tiene
+ * su propio límite de llamadas en curso y una fila de espera acotada. Cuando el
+ * límite está lleno, la petición espera hasta {@code waitMillis} si hay lugar en la
+ * fila; si la fila también está llena o se agota la espera, se rechaza de
+ * inmediato. Así una dependencia lenta solo ocupa sus propios lugares y no deja
+ * sin workers a los flujos que usan las demás.
+ *
+ * La fila solo sirve para ráfagas cortas: un lugar queda ocupado lo que dura la
+ * llamada, segundos, así que una espera larga casi nunca consigue lugar y solo
+ * acumula peticiones detrás de una dependencia que ya va lenta. Por eso la espera
+ * no pasa de {@value #MAX_WAIT_MILLIS} ms y el resto se rechaza con Retry-After.
+ *
+ * Uso desde DataWeave:
+ *
+ * <pre>
+ * import java!com::traxion::resilience::Bulkheads
+ * ---
+ * Bulkheads::tryAcquire(vars.bulkhead, p('bulkhead.' ++ vars.bulkhead ++ '.max.concurrent'), p('bulkhead.' ++ vars.bulkhead ++ '.max.queue'), p('bulkhead.' ++ vars.bulkhead ++ '.wait.millis'))
+ * </pre>
+ *
+ * Cada {@code tryAcquire} exitoso debe liberarse con {@link #release(String)}. Las
+ * respuestas en streaming siguen ocupando la conexión con la dependencia mientras se
+ * envía el cuerpo, así que el lugar pasa al flujo con {@link #releaseOnClose} y se
+ * libera cuando el listener termina de escribirlo.
+ */
+public class Bulkheads {
+
+    private static final int DEFAULT_MAX_CONCURRENT = 20;
+    private static final int DEFAULT_MAX_QUEUE = 0;
+    private static final long DEFAULT_WAIT_MILLIS = 0L;
+
+    /** Tope de waitMillis, aunque la propiedad pida más. */
+    static final long MAX_WAIT_MILLIS = 50L;
+
+    private static final Map<String, Compartment> COMPARTMENTS = new ConcurrentHashMap<>();
+
+    private Bulkheads() {
+    }
+
+    /**
+     * Toma un lugar en el compartimento de la dependencia.
+     *
+     * @return true si se tomó el lugar; false si el compartimento y su fila están llenos
+     */
+    public static boolean tryAcquire(String name, Object maxConcurrent, Object maxQueue, Object waitMillis) {
+        Compartment compartment = COMPARTMENTS.computeIfAbsent(name, key -> new Compartment());
+        return compartment.tryAcquire(
+                (int) Math.max(1, RawValues.toLong(maxConcurrent, DEFAULT_MAX_CONCURRENT)),
+                (int) Math.max(0, RawValues.toLong(maxQueue, DEFAULT_MAX_QUEUE)),
+                Math.min(MAX_WAIT_MILLIS, Math.max(0L, RawValues.toLong(waitMillis, DEFAULT_WAIT_MILLIS))));
+    }
+
+    /**
+     * Libera el lugar tomado con {@link #tryAcquire}.
+     *
+     * @return llamadas que siguen en curso
+     */
+    public static int release(String name) {
+        Compartment compartment = COMPARTMENTS.get(name);
+        return compartment == null ? 0 : compartment.release();
+    }
+
+    /**
+     * Deja el lugar tomado con {@link #tryAcquire} a cargo del cuerpo de la respuesta: se
+     * libera al cerrar el flujo o al leerlo completo, lo que pase primero. Si el cuerpo
+     * no es un flujo se libera de inmediato.
+     *
+     * @return el cuerpo que debe usar el flujo como payload
+     */
+    public static Object releaseOnClose(String name, Object body) {
+        if (body instanceof InputStream) {
+            return new ReleasingStream(name, (InputStream) body);
+        }
+        release(name);
+        return body;
+    }
+
+    /**
+     * Cierra un cuerpo devuelto por {@link #releaseOnClose} que no llegó a enviarse
+     * (la petición terminó en error), para liberar su lugar.
+     *
+     * @return true si el cuerpo tenía un lugar pendiente de liberar
+     */
+    public static boolean releaseStream(Object body) {
+        if (!(body instanceof ReleasingStream)) {
+            return false;
+        }
+        ReleasingStream stream = (ReleasingStream) body;
+        boolean pending = !stream.released.get();
+        try {
+            stream.close();
+        } catch (IOException e) {
+            // El lugar ya se liberó en close(); el error del flujo de origen no cambia la respuesta
+        }
+        return pending;
+    }
+
+    /**
+     * Ocupación y contadores por dependencia para monitoreo.
+     */
+    public static List<Map<String, Object>> stats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (Map.Entry<String, Compartment> item : COMPARTMENTS.entrySet()) {
+            Compartment compartment = item.getValue();
+            Map<String, Object> entry = new HashMap<>(16);
+            entry.put("bulkhead", item.getKey());
+            compartment.lock.lock();
+            try {
+                entry.put("in_flight", compartment.inFlight);
+                entry.put("queued", compartment.queued);
+                entry.put("max_concurrent", compartment.maxConcurrent);
+                entry.put("max_queue", compartment.maxQueue);
+                entry.put("peak_in_flight", compartment.peakInFlight);
+                entry.put("saturation", compartment.maxConcurrent == 0 ? 0d
+                        : (double) compartment.inFlight / compartment.maxConcurrent);
+            } finally {
+                compartment.lock.unlock();
+            }
+            entry.put("accepted", compartment.accepted.get());
+            entry.put("queued_total", compartment.queuedTotal.get());
+            entry.put("rejected", compartment.rejected.get());
+            entry.put("timed_out", compartment.timedOut.get());
+            stats.add(entry);
+        }
+        return stats;
+    }
+
+    private static final class ReleasingStream extends FilterInputStream {
+        final String name;
+        final AtomicBoolean released = new AtomicBoolean();
+
+        ReleasingStream(String name, InputStream in) {
+            super(in);
+            this.name = name;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return released(super.read());
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            return released(super.read(buffer, offset, length));
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                releaseOnce();
+            }
+        }
+
+        private int released(int read) {
+            if (read < 0) {
+                releaseOnce();
+            }
+            return read;
+        }
+
+        private void releaseOnce() {
+            if (released.compareAndSet(false, true)) {
+                release(name);
+            }
+        }
+    }
+
+    private static final class Compartment {
+        final ReentrantLock lock = new ReentrantLock();
+        final Condition available = lock.newCondition();
+        final AtomicLong accepted = new AtomicLong();
+        final AtomicLong queuedTotal = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong timedOut = new AtomicLong();
+        int inFlight;
+        int queued;
+        int peakInFlight;
+        int maxConcurrent = DEFAULT_MAX_CONCURRENT;
+        int maxQueue = DEFAULT_MAX_QUEUE;
+
+        boolean tryAcquire(int maxConcurrent, int maxQueue, long waitMillis) {
+            lock.lock();
+            try {
+                this.maxConcurrent = maxConcurrent;
+                this.maxQueue = maxQueue;
+                if (inFlight < maxConcurrent) {
+                    return take();
+                }
+                if (queued >= maxQueue || waitMillis == 0L) {
+                    rejected.incrementAndGet();
+                    return false;
+                }
+                queued++;
+                queuedTotal.incrementAndGet();
+                try {
+                    long remaining = TimeUnit.MILLISECONDS.toNanos(waitMillis);
+                    while (inFlight >= this.maxConcurrent) {
+                        if (remaining <= 0L) {
+                            timedOut.incrementAndGet();
+                            rejected.incrementAndGet();
+                            return false;
+                        }
+                        remaining = available.awaitNanos(remaining);
+                    }
+                    return take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    rejected.incrementAndGet();
+                    return false;
+                } finally {
+                    queued--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int release() {
+            lock.lock();
+            try {
+                if (inFlight > 0) {
+                    inFlight--;
+                    available.signal();
+                }
+                return inFlight;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean take() {
+            inFlight++;
+            peakInFlight = Math.max(peakInFlight, inFlight);
+            accepted.incrementAndGet();
+            return true;
+        }
+    }
+}
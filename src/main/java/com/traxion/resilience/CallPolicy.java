@@ -0,0 +1,335 @@
+package com.traxion.resilience;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.traxion.json.RawValues;
+
+/**
+ * Política de llamadas a process-pharma-api: timeout adaptativo y presupuesto de reintentos.
+ *
+ * <b>Timeout.</b> Por operación se guardan las latencias de las últimas llamadas
+ * exitosas; el timeout es el percentil configurado multiplicado por un factor,
+ * acotado entre un mínimo y el timeout fijo del conector. Mientras no haya
+ * suficientes muestras se usa el máximo. El resultado se redondea hacia arriba al
+ * escalón más cercano de {@code timeoutTiers}, o al máximo ({@value #MAX_TIER}), y el
+ * flujo llama al conector con la configuración de ese escalón. Cada escalón es una
+ * configuración fija con su propio pool de conexiones; un timeout calculado dentro de
+ * la configuración la volvería dinámica, con una instancia y un pool por cada valor.
+ * Las llamadas que vencen por
+ * timeout se registran con el valor del timeout, así el percentil no queda sesgado
+ * hacia las rápidas; después de {@code timeoutStreak} timeouts seguidos se usa el
+ * máximo hasta la siguiente llamada exitosa. Las operaciones en
+ * {@code fixedOperations} (p. ej. bill-of-lading, que genera el documento y tarda
+ * según su tamaño) siempre usan el máximo.
+ *
+ * <b>Reintentos.</b> Solo los GET se reintentan, con espera aleatoria completa
+ * (full jitter) entre 0 y {@code base * 2^(intento - 1)}. Los reintentos salen de un
+ * presupuesto global: cada llamada deposita {@code ratio} de token y cada reintento
+ * consume uno; además se recarga un mínimo de tokens por segundo. Si no hay token
+ * no se reintenta, lo que evita tormentas de reintentos cuando el servicio está
+ * caído. {@link #backoff} hace la espera en el hilo del reintento; es de pocos
+ * segundos como mucho ({@code maxMillis}) y solo la pagan los reintentos que el
+ * presupuesto deja pasar.
+ *
+ * Uso desde DataWeave:
+ *
+ * <pre>
+ * import java!com::traxion::resilience::CallPolicy
+ * ---
+ * CallPolicy::start(vars.callOperation, vars.callAttempt default 1, {minTimeoutMillis: 2000, maxTimeoutMillis: 180000, timeoutTiers: {fast: 15000, standard: 60000}})
+ * </pre>
+ */
+public class CallPolicy {
+
+    /** Escalón que usa el timeout máximo del conector. */
+    public static final String MAX_TIER = "max";
+
+    private static final int WINDOW = 256;
+
+    private static final long DEFAULT_MIN_TIMEOUT_MILLIS = 2000L;
+    private static final long DEFAULT_MAX_TIMEOUT_MILLIS = 600000L;
+    private static final int DEFAULT_MIN_SAMPLES = 20;
+    private static final int DEFAULT_TIMEOUT_STREAK = 3;
+    private static final double DEFAULT_PERCENTILE = 0.99;
+    private static final double DEFAULT_MULTIPLIER = 2.0;
+    private static final double DEFAULT_RETRY_RATIO = 0.1;
+    private static final double DEFAULT_MIN_RETRIES_PER_SECOND = 1.0;
+    private static final long DEFAULT_BACKOFF_BASE_MILLIS = 100L;
+    private static final long DEFAULT_BACKOFF_MAX_MILLIS = 2000L;
+
+    private static final Map<String, Operation> OPERATIONS = new ConcurrentHashMap<>();
+
+    private static final RetryBudget BUDGET = new RetryBudget();
+
+    private CallPolicy() {
+    }
+
+    /**
+     * Prepara un intento de llamada: calcula el timeout y toma el tiempo de inicio. El
+     * primer intento deposita su parte en el presupuesto de reintentos.
+     *
+     * @param settings Map con minTimeoutMillis, maxTimeoutMillis, minSamples, percentile,
+     *                 multiplier, timeoutStreak, fixedOperations (separadas por coma),
+     *                 timeoutTiers (Map de escalón a milisegundos), retryRatio y
+     *                 minRetriesPerSecond (opcionales)
+     * @return Map con {@code tier}, {@code timeoutMillis} y {@code startNanos}
+     */
+    public static Map<String, Object> start(String operation, Object attempt, Map<String, Object> settings) {
+        Operation op = operation(operation);
+        if (RawValues.toLong(attempt, 1) <= 1) {
+            BUDGET.deposit(RawValues.toDouble(RawValues.setting(settings, "retryRatio"), DEFAULT_RETRY_RATIO),
+                    RawValues.toDouble(RawValues.setting(settings, "minRetriesPerSecond"), DEFAULT_MIN_RETRIES_PER_SECOND));
+        }
+        long max = RawValues.toLong(RawValues.setting(settings, "maxTimeoutMillis"), DEFAULT_MAX_TIMEOUT_MILLIS);
+        long timeout;
+        if (isFixed(operation, RawValues.setting(settings, "fixedOperations"))) {
+            timeout = max;
+        } else {
+            timeout = op.timeoutMillis(
+                    RawValues.toLong(RawValues.setting(settings, "minTimeoutMillis"), DEFAULT_MIN_TIMEOUT_MILLIS),
+                    max,
+                    RawValues.toInt(RawValues.setting(settings, "minSamples"), DEFAULT_MIN_SAMPLES),
+                    RawValues.toDouble(RawValues.setting(settings, "percentile"), DEFAULT_PERCENTILE),
+                    RawValues.toDouble(RawValues.setting(settings, "multiplier"), DEFAULT_MULTIPLIER),
+                    RawValues.toInt(RawValues.setting(settings, "timeoutStreak"), DEFAULT_TIMEOUT_STREAK));
+        }
+        String tier = MAX_TIER;
+        long tierMillis = max;
+        Object tiers = RawValues.setting(settings, "timeoutTiers");
+        if (tiers instanceof Map) {
+            for (Map.Entry<?, ?> item : ((Map<?, ?>) tiers).entrySet()) {
+                long millis = RawValues.toLong(item.getValue(), max);
+                if (millis >= timeout && millis < tierMillis) {
+                    tier = String.valueOf(item.getKey());
+                    tierMillis = millis;
+                }
+            }
+        }
+        op.lastTimeoutMillis = tierMillis;
+        op.calls.incrementAndGet();
+        Map<String, Object> result = new HashMap<>(4);
+        result.put("tier", tier);
+        result.put("timeoutMillis", tierMillis);
+        result.put("startNanos", System.nanoTime());
+        return result;
+    }
+
+    /**
+     * Registra el resultado de un intento.
+     *
+     * @return latencia del intento en milisegundos
+     */
+    public static long end(String operation, Object startNanos, boolean success) {
+        Operation op = operation(operation);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - RawValues.toLong(startNanos, System.nanoTime()));
+        if (success) {
+            op.record(elapsed);
+            op.resetStreak();
+        } else {
+            op.failures.incrementAndGet();
+        }
+        return elapsed;
+    }
+
+    /**
+     * Registra un intento que venció por timeout. La muestra es el timeout (o lo que
+     * tardó, si fue más): la latencia real es al menos eso.
+     *
+     * @return latencia registrada en milisegundos
+     */
+    public static long timeout(String operation, Object startNanos, Object timeoutMillis) {
+        Operation op = operation(operation);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - RawValues.toLong(startNanos, System.nanoTime()));
+        long sample = Math.max(elapsed, RawValues.toLong(timeoutMillis, 0L));
+        op.failures.incrementAndGet();
+        op.timeouts.incrementAndGet();
+        op.recordTimeout(sample);
+        return sample;
+    }
+
+    /**
+     * Decide si un intento fallido se reintenta: quedan intentos y hay presupuesto.
+     */
+    public static boolean tryRetry(String operation, Object attempt, Object maxAttempts) {
+        Operation op = operation(operation);
+        if (RawValues.toLong(attempt, 1) >= RawValues.toLong(maxAttempts, 1)) {
+            return false;
+        }
+        if (!BUDGET.withdraw()) {
+            op.retriesDenied.incrementAndGet();
+            return false;
+        }
+        op.retries.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Espera antes del siguiente intento un tiempo aleatorio entre 0 y
+     * {@code base * 2^(intento - 1)}, sin pasar de {@code max}.
+     *
+     * @param attempt intento que acaba de fallar (1 para el primero)
+     * @return milisegundos de espera
+     */
+    public static long backoff(Object attempt, Object baseMillis, Object maxMillis) {
+        long millis = backoffMillis((int) Math.max(1, RawValues.toLong(attempt, 1)),
+                RawValues.toLong(baseMillis, DEFAULT_BACKOFF_BASE_MILLIS), RawValues.toLong(maxMillis, DEFAULT_BACKOFF_MAX_MILLIS));
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return millis;
+    }
+
+    /**
+     * Latencias, timeout vigente y decisiones de reintento por operación.
+     */
+    public static Map<String, Object> stats() {
+        List<Map<String, Object>> operations = new ArrayList<>();
+        for (Map.Entry<String, Operation> item : OPERATIONS.entrySet()) {
+            Operation op = item.getValue();
+            Map<String, Object> entry = new HashMap<>(16);
+            entry.put("operation", item.getKey());
+            entry.put("calls", op.calls.get());
+            entry.put("failures", op.failures.get());
+            entry.put("timeouts", op.timeouts.get());
+            entry.put("timeout_streak", op.streak());
+            entry.put("retries", op.retries.get());
+            entry.put("retries_denied", op.retriesDenied.get());
+            entry.put("timeout_millis", op.lastTimeoutMillis);
+            long[] samples = op.snapshot();
+            entry.put("samples", samples.length);
+            entry.put("p50_millis", percentile(samples, 0.5));
+            entry.put("p99_millis", percentile(samples, 0.99));
+            operations.add(entry);
+        }
+        Map<String, Object> stats = new HashMap<>(4);
+        stats.put("operations", operations);
+        stats.put("retry_budget_tokens", BUDGET.balance());
+        return stats;
+    }
+
+    private static long backoffMillis(int retry, long base, long max) {
+        long ceiling = Math.min(max, base << Math.min(20, Math.max(0, retry - 1)));
+        return ceiling <= 0 ? 0L : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static boolean isFixed(String operation, Object fixedOperations) {
+        if (fixedOperations == null || operation == null) {
+            return false;
+        }
+        for (String fixed : fixedOperations.toString().split(",")) {
+            if (operation.equals(fixed.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Operation operation(String name) {
+        return OPERATIONS.computeIfAbsent(name, key -> new Operation());
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0L;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static final class Operation {
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong timeouts = new AtomicLong();
+        final AtomicLong retries = new AtomicLong();
+        final AtomicLong retriesDenied = new AtomicLong();
+        final long[] latencies = new long[WINDOW];
+        int count;
+        int next;
+        // timeouts seguidos desde la última llamada exitosa
+        int timeoutStreak;
+        volatile long lastTimeoutMillis;
+
+        synchronized void record(long millis) {
+            latencies[next] = millis;
+            next = (next + 1) % WINDOW;
+            count = Math.min(WINDOW, count + 1);
+        }
+
+        synchronized void recordTimeout(long millis) {
+            record(millis);
+            timeoutStreak++;
+        }
+
+        synchronized void resetStreak() {
+            timeoutStreak = 0;
+        }
+
+        synchronized int streak() {
+            return timeoutStreak;
+        }
+
+        synchronized long[] snapshot() {
+            long[] copy = Arrays.copyOf(latencies, count);
+            Arrays.sort(copy);
+            return copy;
+        }
+
+        long timeoutMillis(long min, long max, int minSamples, double percentile, double multiplier, int streakLimit) {
+            long[] samples = snapshot();
+            if (samples.length < minSamples || (streakLimit > 0 && streak() >= streakLimit)) {
+                return max;
+            }
+            long observed = (long) Math.ceil(CallPolicy.percentile(samples, percentile) * multiplier);
+            return Math.min(max, Math.max(min, observed));
+        }
+    }
+
+    /**
+     * Presupuesto global de reintentos.
+     */
+    private static final class RetryBudget {
+        // Tope de tokens acumulables para que un periodo tranquilo no habilite una ráfaga grande
+        private static final double MAX_TOKENS = 100.0;
+
+        private double tokens;
+        private long lastRefillNanos = System.nanoTime();
+        private double minPerSecond = DEFAULT_MIN_RETRIES_PER_SECOND;
+
+        synchronized void deposit(double ratio, double minRetriesPerSecond) {
+            minPerSecond = minRetriesPerSecond;
+            refill();
+            tokens = Math.min(MAX_TOKENS, tokens + ratio);
+        }
+
+        synchronized boolean withdraw() {
+            refill();
+            if (tokens < 1.0) {
+                return false;
+            }
+            tokens -= 1.0;
+            return true;
+        }
+
+        synchronized double balance() {
+            refill();
+            return tokens;
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            double seconds = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+            lastRefillNanos = now;
+            tokens = Math.min(MAX_TOKENS, tokens + seconds * minPerSecond);
+        }
+    }
+}
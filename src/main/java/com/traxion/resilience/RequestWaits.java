@@ -0,0 +1,94 @@
+package com.traxion.resilience;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.traxion.json.RawValues;
+
+/**
+ * Cupo compartido de peticiones detenidas esperando el resultado de otra.
+ *
+ * Idempotencia, caché de respuestas y micro-lotes hacen que una petición repetida
+ * espere a la que ya está llamando al servicio en lugar de repetir la llamada. Esa
+ * espera dura lo que tarde el servicio, segundos y no milisegundos, y mientras tanto
+ * el hilo del listener queda ocupado. Por eso el tiempo de espera de cada componente
+ * puede ser largo pero el número de hilos esperando a la vez no: entre los tres no
+ * pasan de {@code maxWaiters}. Sin cupo, cada componente sigue sin esperar (409 con
+ * Retry-After, llamada directa al servicio o a TEP sin lote).
+ *
+ * Cada {@link #tryEnter(Map)} exitoso debe cerrarse con {@link #exit()}.
+ */
+public final class RequestWaits {
+
+    private static final int DEFAULT_MAX_WAITERS = 64;
+
+    private static final AtomicInteger WAITING = new AtomicInteger();
+    private static final AtomicLong ENTERED = new AtomicLong();
+    private static final AtomicLong REJECTED = new AtomicLong();
+    private static final AtomicLong TIMED_OUT = new AtomicLong();
+
+    private RequestWaits() {
+    }
+
+    /**
+     * Toma un lugar para esperar.
+     *
+     * @param settings Map con maxWaiters (opcional)
+     * @return true si hay lugar; false si ya hay {@code maxWaiters} peticiones esperando
+     */
+    public static boolean tryEnter(Map<String, Object> settings) {
+        int maxWaiters = (int) Math.max(0L,
+                RawValues.toLong(RawValues.setting(settings, "maxWaiters"), DEFAULT_MAX_WAITERS));
+        while (true) {
+            int waiting = WAITING.get();
+            if (waiting >= maxWaiters) {
+                REJECTED.incrementAndGet();
+                return false;
+            }
+            if (WAITING.compareAndSet(waiting, waiting + 1)) {
+                ENTERED.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libera el lugar tomado con {@link #tryEnter(Map)}.
+     */
+    public static void exit() {
+        WAITING.decrementAndGet();
+    }
+
+    /**
+     * Espera a que el latch llegue a cero.
+     *
+     * @return false si se agotó la espera o se interrumpió el hilo
+     */
+    public static boolean await(CountDownLatch latch, long nanos) {
+        try {
+            if (latch.await(Math.max(0L, nanos), TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        TIMED_OUT.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Peticiones esperando y contadores, para monitoreo.
+     */
+    public static Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>(8);
+        stats.put("waiting", WAITING.get());
+        stats.put("entered", ENTERED.get());
+        stats.put("rejected", REJECTED.get());
+        stats.put("timed_out", TIMED_OUT.get());
+        return stats;
+    }
+}
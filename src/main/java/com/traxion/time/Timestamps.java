@@ -0,0 +1,198 @@
+package com.traxion.time;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Conversión de fechas compactas de WMS ({@code yyyyMMddHHmmss}) a epoch en
+ * milisegundos.
+ *
+ * Sustituye la función DataWeave {@code toDate} que armaba una cadena ISO por
+ * substrings y luego hacía {@code as DateTime as Number}. Aquí los dígitos se
+ * leen directamente y la fecha se calcula con aritmética de días, sin crear
+ * objetos intermedios cuando la zona tiene desfase fijo (UTC por omisión).
+ * Los valores vistos recientemente se guardan en un caché de acceso directo,
+ * ya que en un snapshot la misma fecha de caducidad se repite en muchos lotes.
+ *
+ * Uso desde DataWeave:
+ *
+ * <pre>
+ * import java!com::traxion::time::Timestamps
+ * ---
+ * Timestamps::toEpochMillis(item.EXPIRATION_DATE, p('wms.timestamp.zone'))
+ * </pre>
+ */
+public class Timestamps {
+
+    /** Zona usada cuando no se indica una; coincide con la del runtime en CloudHub. */
+    public static final String DEFAULT_ZONE = "UTC";
+
+    private static final int PATTERN_LENGTH = 14;
+
+    private static final int CACHE_SIZE = 1024;
+    private static final int CACHE_MASK = CACHE_SIZE - 1;
+
+    private static final long MILLIS_PER_SECOND = 1000L;
+    private static final long SECONDS_PER_DAY = 86400L;
+
+    /** Días entre 0000-03-01 y 1970-01-01 en el calendario gregoriano proléptico. */
+    private static final long DAYS_0000_TO_1970 = 719468L;
+
+    private static final ConcurrentHashMap<String, ZoneRules> ZONES = new ConcurrentHashMap<>();
+
+    // Caché de acceso directo; las entradas son inmutables, una carrera solo provoca un fallo de caché
+    private static final Entry[] CACHE = new Entry[CACHE_SIZE];
+
+    private Timestamps() {
+    }
+
+    /**
+     * Convierte {@code yyyyMMddHHmmss} en UTC a epoch en milisegundos.
+     */
+    public static Long toEpochMillis(Object value) {
+        return toEpochMillis(value, DEFAULT_ZONE);
+    }
+
+    /**
+     * Convierte {@code yyyyMMddHHmmss} a epoch en milisegundos interpretando la fecha
+     * en la zona indicada.
+     *
+     * @param value fecha compacta; se ignoran los caracteres después de la posición 14
+     * @param zone id de zona (UTC, America/Mexico_City, -06:00); null usa UTC
+     * @return milisegundos desde epoch, o null si el valor viene vacío
+     * @throws IllegalArgumentException si el valor no tiene el formato esperado
+     */
+    public static Long toEpochMillis(Object value, String zone) {
+        if (value == null) {
+            return null;
+        }
+        CharSequence text = value instanceof CharSequence ? (CharSequence) value : value.toString();
+        if (text.length() == 0) {
+            return null;
+        }
+        String zoneId = zone == null || zone.trim().isEmpty() ? DEFAULT_ZONE : zone.trim();
+
+        int slot = hash(text, zoneId) & CACHE_MASK;
+        Entry cached = CACHE[slot];
+        if (cached != null && cached.matches(text, zoneId)) {
+            return cached.millis;
+        }
+        Long millis = parse(text, rules(zoneId));
+        CACHE[slot] = new Entry(text.toString(), zoneId, millis);
+        return millis;
+    }
+
+    /**
+     * Convierte sin pasar por el caché.
+     */
+    public static long parse(CharSequence text, ZoneRules rules) {
+        if (text.length() < PATTERN_LENGTH) {
+            throw invalid(text);
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 4, 2);
+        int day = digits(text, 6, 2);
+        int hour = digits(text, 8, 2);
+        int minute = digits(text, 10, 2);
+        int second = digits(text, 12, 2);
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour > 23 || minute > 59 || second > 59) {
+            throw invalid(text);
+        }
+
+        long localSeconds = epochDay(year, month, day) * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second;
+        int offsetSeconds;
+        if (rules.isFixedOffset()) {
+            offsetSeconds = rules.getOffset(Instant.EPOCH).getTotalSeconds();
+        } else {
+            // Zonas con horario de verano: se usa el desfase vigente para esa hora local
+            offsetSeconds = rules.getOffset(LocalDateTime.of(year, month, day, hour, minute, second)).getTotalSeconds();
+        }
+        return (localSeconds - offsetSeconds) * MILLIS_PER_SECOND;
+    }
+
+    private static ZoneRules rules(String zoneId) {
+        ZoneRules rules = ZONES.get(zoneId);
+        if (rules == null) {
+            try {
+                rules = ZoneId.of(zoneId).getRules();
+            } catch (DateTimeException e) {
+                throw new IllegalArgumentException("Zona horaria invalida: " + zoneId, e);
+            }
+            ZONES.putIfAbsent(zoneId, rules);
+        }
+        return rules;
+    }
+
+    /**
+     * Días desde 1970-01-01 (algoritmo civil de Howard Hinnant).
+     */
+    private static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static int digits(CharSequence text, int start, int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw invalid(text);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int hash(CharSequence text, String zoneId) {
+        int h = zoneId.hashCode();
+        int length = Math.min(text.length(), PATTERN_LENGTH);
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + text.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static IllegalArgumentException invalid(CharSequence text) {
+        return new IllegalArgumentException("Fecha con formato invalido, se esperaba yyyyMMddHHmmss: " + text);
+    }
+
+    private static final class Entry {
+        final String text;
+        final String zoneId;
+        final Long millis;
+
+        Entry(String text, String zoneId, Long millis) {
+            this.text = text;
+            this.zoneId = zoneId;
+            this.millis = millis;
+        }
+
+        boolean matches(CharSequence other, String otherZone) {
+            return zoneId.equals(otherZone) && text.contentEquals(other);
+        }
+    }
+}
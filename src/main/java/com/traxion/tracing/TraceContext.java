@@ -0,0 +1,268 @@
+package com.traxion.tracing;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.traxion.json.RawValues;
+
+/**
+ * Contexto de traza W3C ({@code traceparent}) y exportación de spans.
+ *
+ * La petición recibe el {@code traceparent} del cliente o, si no trae uno válido, se
+ * genera una traza nueva. Cada llamada a una dependencia abre un span hijo cuyo
+ * {@code traceparent} se envía en headers de Kafka, atributos de Pub/Sub o metadata
+ * gRPC, para que los consumidores continúen la misma traza.
+ *
+ * Los spans terminados de trazas muestreadas se escriben como una línea JSON en la
+ * categoría {@code com.traxion.trace} (archivo propio en {@code log4j2.xml}, que un
+ * collector puede leer) y los últimos se guardan en memoria para {@code GET /ops/traces}.
+ * Las trazas que llegan con {@code traceparent} respetan su bandera de muestreo; las
+ * nuevas se muestrean con la proporción configurada.
+ *
+ * Uso desde DataWeave:
+ *
+ * <pre>
+ * import java!com::traxion::tracing::TraceContext
+ * ---
+ * TraceContext::begin(attributes.headers.traceparent, attributes.headers.tracestate, p('tracing.sample.ratio'))
+ * </pre>
+ */
+public class TraceContext {
+
+    public static final String SERVER = "SERVER";
+    public static final String CLIENT = "CLIENT";
+    public static final String PRODUCER = "PRODUCER";
+
+    private static final Logger EXPORTER = LogManager.getLogger("com.traxion.trace");
+
+    private static final String VERSION = "00";
+    private static final String SAMPLED = "01";
+    private static final String NOT_SAMPLED = "00";
+
+    private static final int BUFFER_SIZE = 1000;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final AtomicReferenceArray<Map<String, Object>> RECENT = new AtomicReferenceArray<>(BUFFER_SIZE);
+    private static final AtomicLong NEXT = new AtomicLong();
+
+    // Diferencia entre el reloj de pared y nanoTime para fechar spans con precisión de nanos
+    private static final long EPOCH_OFFSET_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - System.nanoTime();
+
+    private TraceContext() {
+    }
+
+    /**
+     * Abre el span de la petición.
+     *
+     * @param traceparent header recibido (opcional)
+     * @param tracestate header recibido (opcional); se conserva tal cual
+     * @param sampleRatio proporción de trazas nuevas que se muestrean (0 a 1)
+     * @return span con {@code traceId}, {@code spanId}, {@code parentSpanId},
+     *         {@code sampled}, {@code traceparent} y {@code tracestate}
+     */
+    public static Map<String, Object> begin(Object traceparent, Object tracestate, Object sampleRatio) {
+        String[] parent = parse(traceparent);
+        String traceId;
+        String parentSpanId;
+        boolean sampled;
+        if (parent != null) {
+            traceId = parent[1];
+            parentSpanId = parent[2];
+            sampled = (Integer.parseInt(parent[3], 16) & 1) == 1;
+        } else {
+            traceId = randomHex(16);
+            parentSpanId = null;
+            double ratio = RawValues.toDouble(sampleRatio, 1.0);
+            sampled = ratio >= 1.0 || (ratio > 0.0 && ThreadLocalRandom.current().nextDouble() < ratio);
+        }
+        return span(traceId, parentSpanId, sampled, parent != null && tracestate != null ? tracestate.toString() : null);
+    }
+
+    /**
+     * Abre un span hijo para una llamada saliente.
+     *
+     * @return span hijo, o null si no hay traza
+     */
+    public static Map<String, Object> child(Map<String, Object> parent) {
+        if (parent == null || parent.get("traceId") == null) {
+            return null;
+        }
+        return span((String) parent.get("traceId"), (String) parent.get("spanId"),
+                Boolean.TRUE.equals(parent.get("sampled")), (String) parent.get("tracestate"));
+    }
+
+    /**
+     * Cierra el span y lo exporta si la traza está muestreada.
+     *
+     * @param kind {@code SERVER}, {@code CLIENT} o {@code PRODUCER}
+     * @param attributes atributos del span (opcional)
+     * @return true si se exportó
+     */
+    public static boolean end(Map<String, Object> span, String name, String kind, Map<String, Object> attributes) {
+        if (span == null || !Boolean.TRUE.equals(span.get("sampled"))) {
+            return false;
+        }
+        long endNanos = System.nanoTime();
+        long startNanos = ((Number) span.get("startNanos")).longValue();
+        Map<String, Object> finished = new HashMap<>(16);
+        finished.put("trace_id", span.get("traceId"));
+        finished.put("span_id", span.get("spanId"));
+        finished.put("parent_span_id", span.get("parentSpanId"));
+        finished.put("name", name);
+        finished.put("kind", kind == null ? CLIENT : kind.toUpperCase(Locale.ROOT));
+        finished.put("start_time_unix_nano", EPOCH_OFFSET_NANOS + startNanos);
+        finished.put("end_time_unix_nano", EPOCH_OFFSET_NANOS + endNanos);
+        finished.put("duration_ms", TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos));
+        finished.put("attributes", attributes == null ? new HashMap<String, Object>() : new HashMap<>(attributes));
+        RECENT.set((int) (NEXT.getAndIncrement() % BUFFER_SIZE), finished);
+        if (EXPORTER.isInfoEnabled()) {
+            EXPORTER.info(toJson(finished));
+        }
+        return true;
+    }
+
+    /**
+     * Últimos spans exportados, opcionalmente de una sola traza.
+     */
+    public static List<Map<String, Object>> recent(String traceId) {
+        List<Map<String, Object>> spans = new ArrayList<>();
+        for (int i = 0; i < BUFFER_SIZE; i++) {
+            Map<String, Object> span = RECENT.get(i);
+            if (span != null && (traceId == null || traceId.isEmpty() || traceId.equals(span.get("trace_id")))) {
+                spans.add(span);
+            }
+        }
+        return spans;
+    }
+
+    private static Map<String, Object> span(String traceId, String parentSpanId, boolean sampled, String tracestate) {
+        String spanId = randomHex(8);
+        Map<String, Object> span = new HashMap<>(16);
+        span.put("traceId", traceId);
+        span.put("spanId", spanId);
+        span.put("parentSpanId", parentSpanId);
+        span.put("sampled", sampled);
+        span.put("traceparent", VERSION + "-" + traceId + "-" + spanId + "-" + (sampled ? SAMPLED : NOT_SAMPLED));
+        span.put("tracestate", tracestate);
+        span.put("startNanos", System.nanoTime());
+        return span;
+    }
+
+    /**
+     * Valida un traceparent versión 00: {@code 00-<32 hex>-<16 hex>-<2 hex>}, sin ids en cero.
+     *
+     * @return partes del header, o null si no es válido
+     */
+    private static String[] parse(Object header) {
+        if (header == null) {
+            return null;
+        }
+        String value = header.toString().trim().toLowerCase(Locale.ROOT);
+        String[] parts = value.split("-");
+        if (parts.length < 4 || parts[0].length() != 2 || "ff".equals(parts[0])
+                || (VERSION.equals(parts[0]) && parts.length != 4)) {
+            return null;
+        }
+        if (!isHex(parts[0], 2) || !isHex(parts[1], 32) || !isHex(parts[2], 16) || !isHex(parts[3], 2)) {
+            return null;
+        }
+        if (isZero(parts[1]) || isZero(parts[2])) {
+            return null;
+        }
+        return parts;
+    }
+
+    private static boolean isHex(String value, int length) {
+        if (value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isZero(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) != '0') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String randomHex(int bytes) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] hex = new char[bytes * 2];
+        boolean zero = true;
+        for (int i = 0; i < bytes; i++) {
+            int b = random.nextInt(256);
+            zero &= b == 0;
+            hex[i * 2] = HEX[(b >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[b & 0xf];
+        }
+        if (zero) {
+            hex[hex.length - 1] = '1';
+        }
+        return new String(hex);
+    }
+
+    private static String toJson(Map<String, Object> span) {
+        StringBuilder json = new StringBuilder(256);
+        appendValue(json, span);
+        return json.toString();
+    }
+
+    private static void appendValue(StringBuilder json, Object value) {
+        if (value == null) {
+            json.append("null");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            json.append(value);
+        } else if (value instanceof Map) {
+            json.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                appendString(json, String.valueOf(entry.getKey()));
+                json.append(':');
+                appendValue(json, entry.getValue());
+            }
+            json.append('}');
+        } else {
+            appendString(json, value.toString());
+        }
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,452 @@
+package com.traxion.transform;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.traxion.json.JsonValues;
+
+/**
+ * Conversión en streaming del SOAP CrearViajeCompleto de IMSS al JSON de creación
+ * de orden de process-pharma-api.
+ *
+ * Equivalente en Java del Transform Message de
+ * {@code orchestrator-create-order-convert-json-request}. El XML se recorre una sola
+ * vez con StAX y el JSON se escribe conforme avanza la lectura: cada parada y cada
+ * item se emiten en cuanto se cierran, así la memoria no crece con el número de
+ * paradas o items. Se respetan las reglas del mapeo DataWeave: se sigue la ruta
+ * {@code Envelope/Body/CrearViajeCompleto/crearviaje} desde la raíz, se toma el primer
+ * elemento con cada nombre, los elementos ausentes o vacíos se escriben como null
+ * (también {@code paradas} e {@code items} sin elementos) y los espacios de nombres
+ * se ignoran.
+ *
+ * Si algún campo de cabecera llega después de {@code Paradas} (o un campo de parada
+ * después de {@code Items}), se escribe al final del objeto correspondiente; el
+ * contenido es el mismo aunque cambie el orden de las llaves.
+ *
+ * Uso desde Mule:
+ *
+ * <pre>
+ * #[java!com::traxion::transform::CrearViajeConverter::convert(payload.^raw, now()[0 to 18])]
+ * </pre>
+ */
+public class CrearViajeConverter {
+
+    private static final XMLInputFactory XML_FACTORY = createFactory();
+
+    private static final String ENVELOPE_ELEMENT = "Envelope";
+    private static final String BODY_ELEMENT = "Body";
+    private static final String ROOT_ELEMENT = "CrearViajeCompleto";
+    private static final String TRIP_ELEMENT = "crearviaje";
+    private static final String STOPS_ELEMENT = "Paradas";
+    private static final String STOP_ELEMENT = "pParada";
+    private static final String ITEMS_ELEMENT = "Items";
+    private static final String ITEM_ELEMENT = "pParadaItem";
+
+    // Campo JSON, ruta relativa dentro de crearviaje
+    private static final String[][] TRIP_FIELDS = {
+            {"fechaViaje", "FechaViaje"},
+            {"fechaInicioPlan", "FechaInicioPlan"},
+            {"fechaArribo", "FechaArribo"},
+            {"fechaFinPlan", null},
+            {"referencia", "Referencia"},
+            {"descripcion", "Descripcion"},
+            {"sucursal", "Sucursal"},
+            {"operacion", "Operacion"},
+            {"empresa", "Empresa"},
+            {"tipoViaje", "TipoViaje"},
+            {"refCliente", "cliente/RefCliente"},
+            {"razonSocialCliente", "cliente/RazonSocial"},
+            {"depositoSalida", "depositoSalida/RefDepositoExterno"},
+            {"depositoLlegada", "depositoLlegada/RefDepositoExterno"}
+    };
+    private static final int FECHA_FIN_PLAN = 3;
+
+    private static final String[][] STOP_FIELDS = {
+            {"secuencia", "Secuencia"},
+            {"refDocumento", "RefDocumento"},
+            {"refDocumentoAdicional", "refDocumentoAdicional"},
+            {"tipoParada", "TipoParada"},
+            {"inicioHorarioPlanificado", "InicioHorarioPlanificado"},
+            {"finHorarioPlanificado", "FinHorarioPlanificado"},
+            {"refCliente", null},
+            {"refDomicilioExternoCliente", "cliente/RefDomicilioExterno"},
+            {"domicilioDescripcionCliente", "cliente/DomicilioDescripcion"}
+    };
+    private static final int REF_CLIENTE = 6;
+    private static final String STOP_REF_CLIENTE = "IMSS BIENESTAR";
+
+    private static final String[][] ITEM_FIELDS = {
+            {"refDocumento", "RefDocumento"},
+            {"refDocumentoAdicional", "RefDocumentoAdicional"},
+            {"descripcion", "Descripcion"},
+            {"cantidad", "Cantidad"},
+            {"volumen", "Volumen"},
+            {"peso", "Peso"},
+            {"pallets", "Pallets"},
+            {"productoLinea", "ProductoLinea"},
+            {"apilablePermitido", "Apilable_Permitido"},
+            {"embalaje", "Varchar3"},
+            {"fechaCaducidad", "Varchar2"},
+            {"lote", "Varchar1"}
+    };
+
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
+    private CrearViajeConverter() {
+    }
+
+    /**
+     * @param soap XML del SOAP (InputStream, byte[], Reader o String)
+     * @param fechaFinPlan valor para fechaFinPlan (el flujo envía {@code now()[0 to 18]})
+     * @return JSON UTF-8 con fechaViaje, paradas e items
+     */
+    public static byte[] convert(Object soap, String fechaFinPlan) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        XMLStreamReader reader = null;
+        try (JsonGenerator json = JsonValues.FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            reader = open(soap);
+            Fields trip = new Fields(TRIP_FIELDS);
+            trip.set(FECHA_FIN_PLAN, fechaFinPlan);
+            json.writeStartObject();
+            if (seekRoot(reader, ENVELOPE_ELEMENT) && seekChild(reader, BODY_ELEMENT)
+                    && seekChild(reader, ROOT_ELEMENT) && seekChild(reader, TRIP_ELEMENT)) {
+                readTrip(reader, json, trip);
+            }
+            trip.writeRemaining(json);
+            if (!trip.listWritten) {
+                json.writeNullField("paradas");
+            }
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error generando JSON de CrearViajeCompleto", e);
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("XML de CrearViajeCompleto invalido: " + e.getMessage(), e);
+        } finally {
+            close(reader);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Lee el contenido de crearviaje; el reader está en su START_ELEMENT.
+     */
+    private static void readTrip(XMLStreamReader reader, JsonGenerator json, Fields trip)
+            throws XMLStreamException, IOException {
+        int depth = 0;
+        String parent = null;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                if (depth == 0 && STOPS_ELEMENT.equals(name) && !trip.listWritten) {
+                    trip.writeSeen(json);
+                    readList(reader, json, "paradas", STOP_ELEMENT, true);
+                    trip.listWritten = true;
+                    continue;
+                }
+                String path = depth == 0 ? name : parent + "/" + name;
+                int index = trip.indexOf(path);
+                if (index >= 0) {
+                    trip.setIfAbsent(index, text(reader));
+                } else if (depth == 0) {
+                    parent = name;
+                    depth++;
+                } else {
+                    skip(reader);
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (depth == 0) {
+                    return;
+                }
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Recorre los hijos {@code element} del contenedor actual (Paradas o Items) y
+     * escribe cada uno en cuanto termina. Sin ningún hijo el campo queda en null, como
+     * {@code Paradas.*pParada map ...} en DataWeave.
+     */
+    private static void readList(XMLStreamReader reader, JsonGenerator json, String field, String element,
+            boolean stops) throws XMLStreamException, IOException {
+        boolean started = false;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (element.equals(reader.getLocalName())) {
+                    if (!started) {
+                        json.writeArrayFieldStart(field);
+                        started = true;
+                    }
+                    if (stops) {
+                        readStop(reader, json);
+                    } else {
+                        readItem(reader, json);
+                    }
+                } else {
+                    skip(reader);
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+        }
+        if (started) {
+            json.writeEndArray();
+        } else {
+            json.writeNullField(field);
+        }
+    }
+
+    private static void readStop(XMLStreamReader reader, JsonGenerator json) throws XMLStreamException, IOException {
+        Fields stop = new Fields(STOP_FIELDS);
+        stop.set(REF_CLIENTE, STOP_REF_CLIENTE);
+        json.writeStartObject();
+        int depth = 0;
+        String parent = null;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                if (depth == 0 && ITEMS_ELEMENT.equals(name) && !stop.listWritten) {
+                    stop.writeSeen(json);
+                    readList(reader, json, "items", ITEM_ELEMENT, false);
+                    stop.listWritten = true;
+                    continue;
+                }
+                String path = depth == 0 ? name : parent + "/" + name;
+                int index = stop.indexOf(path);
+                if (index >= 0) {
+                    stop.setIfAbsent(index, text(reader));
+                } else if (depth == 0) {
+                    parent = name;
+                    depth++;
+                } else {
+                    skip(reader);
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (depth == 0) {
+                    break;
+                }
+                depth--;
+            }
+        }
+        stop.writeRemaining(json);
+        if (!stop.listWritten) {
+            json.writeNullField("items");
+        }
+        json.writeEndObject();
+    }
+
+    private static void readItem(XMLStreamReader reader, JsonGenerator json) throws XMLStreamException, IOException {
+        Fields item = new Fields(ITEM_FIELDS);
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                int index = item.indexOf(reader.getLocalName());
+                if (index >= 0) {
+                    item.setIfAbsent(index, text(reader));
+                } else {
+                    skip(reader);
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+        }
+        json.writeStartObject();
+        item.writeRemaining(json);
+        json.writeEndObject();
+    }
+
+    /**
+     * Valores de un objeto de salida. Recuerda qué campos ya se escribieron para que
+     * cada llave aparezca una sola vez aunque se escriba en dos tramos.
+     */
+    private static final class Fields {
+        private final String[][] definition;
+        private final String[] values;
+        private final boolean[] seen;
+        private final boolean[] written;
+        // Paradas (en crearviaje) o Items (en pParada) ya se escribieron
+        boolean listWritten;
+
+        Fields(String[][] definition) {
+            this.definition = definition;
+            this.values = new String[definition.length];
+            this.seen = new boolean[definition.length];
+            this.written = new boolean[definition.length];
+        }
+
+        int indexOf(String path) {
+            for (int i = 0; i < definition.length; i++) {
+                if (path.equals(definition[i][1])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void set(int index, String value) {
+            values[index] = value;
+            seen[index] = true;
+        }
+
+        void setIfAbsent(int index, String value) {
+            if (!seen[index]) {
+                set(index, value);
+            }
+        }
+
+        /** Escribe los campos ya leídos, en el orden del mapeo. */
+        void writeSeen(JsonGenerator json) throws IOException {
+            for (int i = 0; i < definition.length; i++) {
+                if (seen[i] && !written[i]) {
+                    write(json, i);
+                }
+            }
+        }
+
+        /** Escribe los campos pendientes; los que nunca llegaron quedan en null. */
+        void writeRemaining(JsonGenerator json) throws IOException {
+            for (int i = 0; i < definition.length; i++) {
+                if (!written[i]) {
+                    write(json, i);
+                }
+            }
+        }
+
+        private void write(JsonGenerator json, int index) throws IOException {
+            json.writeFieldName(definition[index][0]);
+            if (values[index] == null) {
+                json.writeNull();
+            } else {
+                json.writeString(values[index]);
+            }
+            written[index] = true;
+        }
+    }
+
+    /**
+     * Texto del elemento actual hasta su cierre; vacío o solo espacios se toma como
+     * null (comportamiento por omisión del lector XML de DataWeave).
+     */
+    private static String text(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = null;
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    if (depth == 1) {
+                        if (text == null) {
+                            text = new StringBuilder();
+                        }
+                        text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (text == null) {
+            return null;
+        }
+        String value = text.toString();
+        return value.trim().isEmpty() ? null : value;
+    }
+
+    private static void skip(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Avanza hasta el elemento raíz y revisa que tenga ese nombre
+     * ({@code payload.Envelope} en DataWeave).
+     */
+    private static boolean seekRoot(XMLStreamReader reader, String localName) throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                return localName.equals(reader.getLocalName());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Avanza hasta el hijo directo con ese nombre del elemento actual.
+     */
+    private static boolean seekChild(XMLStreamReader reader, String localName) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (localName.equals(reader.getLocalName())) {
+                    return true;
+                }
+                skip(reader);
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static XMLStreamReader open(Object soap) throws XMLStreamException {
+        if (soap instanceof InputStream) {
+            return XML_FACTORY.createXMLStreamReader((InputStream) soap);
+        }
+        if (soap instanceof byte[]) {
+            return XML_FACTORY.createXMLStreamReader(new ByteArrayInputStream((byte[]) soap));
+        }
+        if (soap instanceof Reader) {
+            return XML_FACTORY.createXMLStreamReader((Reader) soap);
+        }
+        return XML_FACTORY.createXMLStreamReader(new StringReader(soap == null ? "" : soap.toString()));
+    }
+
+    private static void close(XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                // El reader ya no se usa
+            }
+        }
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // Sin DTD ni entidades externas (XXE)
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+        return factory;
+    }
+}
@@ -0,0 +1,274 @@
+package com.traxion.transform;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.traxion.json.JsonValues;
+
+/**
+ * Transformación del evento order_status_change de WMS BY al order-event de OMS.
+ *
+ * Equivalente en Java del Transform Message2 de
+ * {@code orchestrator-kafka-wmsby-to-oms-operations-order-events}: lee la entrada
+ * con Jackson streaming una sola vez, conserva únicamente los campos que usa el
+ * mapeo y escribe el sobre de salida directamente a bytes. {@code lotes} y
+ * {@code order_details} se generan del mismo recorrido de order_details y
+ * {@code publish_at}/{@code origin_timestamp} comparten un solo {@code now()}.
+ *
+ * Uso desde Mule:
+ *
+ * <pre>
+ * &lt;set-payload value="#[java!com::traxion::transform::OrderEventTransformer::transform(payload.^raw)]" mimeType="application/json"/&gt;
+ * </pre>
+ */
+public class OrderEventTransformer {
+
+    private static final String ROOT_FIELD = "order_status_change";
+    private static final String DETAILS_FIELD = "order_details";
+
+    // Campos de order_status_change que usa el mapeo
+    private static final String TRACKING_ID = "TRACKING_ID";
+    private static final String STATUS = "STATUS";
+    private static final String EVENT_TIMESTAMP = "EVENT_TIMESTAMP";
+    private static final String USER = "USER";
+    private static final String LOAD_ID = "LOAD_ID";
+
+    // Campos de cada order_detail, en el orden en que se guardan
+    private static final String[] DETAIL_FIELDS = {
+            "PRODUCT_NUMBER", "LOT_NUMBER", "QUANTITY", "VOLUME", "WEIGHT", "BULK", "PARCEL",
+            "EXPECTED_QUANTITY", "MATERIAL_TYPE", "CONDITION_TYPE"
+    };
+    private static final int PRODUCT_NUMBER = 0;
+    private static final int LOT_NUMBER = 1;
+    private static final int QUANTITY = 2;
+    private static final int VOLUME = 3;
+    private static final int WEIGHT = 4;
+    private static final int BULK = 5;
+    private static final int PARCEL = 6;
+    private static final int EXPECTED_QUANTITY = 7;
+    private static final int MATERIAL_TYPE = 8;
+    private static final int CONDITION_TYPE = 9;
+
+    private static final int INITIAL_BUFFER_SIZE = 2048;
+
+    private OrderEventTransformer() {
+    }
+
+    /**
+     * @param input JSON de entrada (InputStream, byte[], Reader o String)
+     * @return order-event en JSON UTF-8
+     */
+    public static byte[] transform(Object input) {
+        try (JsonParser parser = JsonValues.parser(input)) {
+            OrderStatusChange change = read(parser);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+            try (JsonGenerator generator = JsonValues.FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+                write(generator, change, System.currentTimeMillis());
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error transformando order_status_change", e);
+        }
+    }
+
+    private static OrderStatusChange read(JsonParser parser) throws IOException {
+        OrderStatusChange change = new OrderStatusChange();
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return change;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (ROOT_FIELD.equals(field) && token == JsonToken.START_OBJECT) {
+                readOrderStatusChange(parser, change);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return change;
+    }
+
+    private static void readOrderStatusChange(JsonParser parser, OrderStatusChange change) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case TRACKING_ID:
+                    change.trackingId = JsonValues.read(parser);
+                    break;
+                case STATUS:
+                    change.status = JsonValues.read(parser);
+                    break;
+                case EVENT_TIMESTAMP:
+                    change.eventTimestamp = JsonValues.read(parser);
+                    break;
+                case USER:
+                    change.user = JsonValues.read(parser);
+                    break;
+                case LOAD_ID:
+                    change.loadId = JsonValues.read(parser);
+                    break;
+                case DETAILS_FIELD:
+                    readDetails(parser, token, change.details);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Equivale a {@code flatten([order_details])}: un objeto suelto se trata como
+     * arreglo de un elemento y un valor nulo produce un elemento con todos los campos
+     * en null, igual que en DataWeave.
+     */
+    private static void readDetails(JsonParser parser, JsonToken token, List<Object[]> details) throws IOException {
+        if (token == JsonToken.START_ARRAY) {
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                details.add(readDetail(parser));
+            }
+        } else {
+            details.add(readDetail(parser));
+        }
+    }
+
+    private static Object[] readDetail(JsonParser parser) throws IOException {
+        Object[] detail = new Object[DETAIL_FIELDS.length];
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return detail;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            int index = detailIndex(parser.getCurrentName());
+            parser.nextToken();
+            if (index >= 0) {
+                detail[index] = JsonValues.read(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return detail;
+    }
+
+    private static int detailIndex(String field) {
+        for (int i = 0; i < DETAIL_FIELDS.length; i++) {
+            if (DETAIL_FIELDS[i].equals(field)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void write(JsonGenerator out, OrderStatusChange change, long now) throws IOException {
+        List<Object[]> details = change.details.isEmpty()
+                ? Collections.singletonList(new Object[DETAIL_FIELDS.length])
+                : change.details;
+
+        out.writeStartObject();
+
+        out.writeObjectFieldStart("payload");
+        writeField(out, "tracking_id", change.trackingId);
+        writeField(out, "event", change.status);
+        writeField(out, "event_timestamp", toEpochMillis(change.eventTimestamp));
+        out.writeNullField("event_note");
+        out.writeObjectFieldStart("author");
+        out.writeStringField("id", "");
+        writeField(out, "name", change.user);
+        out.writeStringField("type", "");
+        out.writeStringField("email", "");
+        out.writeEndObject();
+        out.writeEndObject();
+
+        writeField(out, "event", change.status);
+        out.writeNumberField("publish_at", now);
+        out.writeStringField("project", "PISA");
+        out.writeStringField("company", "PISA");
+        out.writeStringField("origin_platform", "WMS");
+        out.writeNumberField("origin_timestamp", now);
+        out.writeStringField("order_type", "REMISSION_PISA");
+
+        out.writeObjectFieldStart("context");
+        out.writeArrayFieldStart("lotes");
+        for (Object[] detail : details) {
+            out.writeStartObject();
+            writeField(out, "item_id", detail[PRODUCT_NUMBER]);
+            writeField(out, "lote_id", detail[LOT_NUMBER]);
+            writeField(out, "accepted_quantity", detail[QUANTITY]);
+            out.writeEndObject();
+        }
+        out.writeEndArray();
+        out.writeArrayFieldStart("order_details");
+        for (Object[] detail : details) {
+            out.writeStartObject();
+            writeField(out, "product_number", detail[PRODUCT_NUMBER]);
+            writeField(out, "volume", detail[VOLUME]);
+            writeField(out, "weight", detail[WEIGHT]);
+            writeField(out, "bulk", detail[BULK]);
+            writeField(out, "parcel", detail[PARCEL]);
+            writeField(out, "lot_number", detail[LOT_NUMBER]);
+            writeField(out, "quantity", detail[QUANTITY]);
+            writeField(out, "expected_quantity", detail[EXPECTED_QUANTITY]);
+            writeField(out, "material_type", detail[MATERIAL_TYPE]);
+            writeField(out, "condition_type", detail[CONDITION_TYPE]);
+            out.writeEndObject();
+        }
+        out.writeEndArray();
+        writeField(out, "delivery_id", change.loadId);
+        out.writeEndObject();
+
+        out.writeStringField("version", "1");
+        out.writeEndObject();
+    }
+
+    private static void writeField(JsonGenerator out, String name, Object value) throws IOException {
+        out.writeFieldName(name);
+        JsonValues.write(out, value);
+    }
+
+    /**
+     * Equivale a {@code EVENT_TIMESTAMP as DateTime as Number {unit: "milliseconds"}}.
+     * Las fechas sin desfase se interpretan en UTC, la zona del runtime.
+     */
+    static Long toEpochMillis(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number) {
+            // DataWeave interpreta un número como segundos desde epoch
+            return ((Number) value).longValue() * 1000L;
+        }
+        try {
+            TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parse(value.toString());
+            if (parsed.isSupported(ChronoField.OFFSET_SECONDS)) {
+                return OffsetDateTime.from(parsed).toInstant().toEpochMilli();
+            }
+            return LocalDateTime.from(parsed).toInstant(ZoneOffset.UTC).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("EVENT_TIMESTAMP invalido: " + value, e);
+        }
+    }
+
+    private static final class OrderStatusChange {
+        Object trackingId;
+        Object status;
+        Object eventTimestamp;
+        Object user;
+        Object loadId;
+        final List<Object[]> details = new ArrayList<>();
+    }
+}
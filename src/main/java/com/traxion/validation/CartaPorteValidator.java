@@ -0,0 +1,205 @@
+package com.traxion.validation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.traxion.json.JsonValues;
+
+/**
+ * Validación de la carta porte en una sola pasada.
+ *
+ * Reemplaza la cadena de {@code validation:is-not-blank-string} por operador: lee el
+ * documento con Jackson streaming, carga solo las secciones que se validan
+ * ({@code figura_transporte}, {@code autotransporte} y {@code mercancias}) y
+ * devuelve todas las violaciones juntas en lugar de detenerse en la primera.
+ *
+ * Las reglas de operadores son las mismas que tenía el flujo (rfc, nombre y licencia
+ * no vacíos, con los mismos mensajes). Las de vehículo y mercancías solo se aplican
+ * con {@code extended} y cuando la sección viene en el documento.
+ *
+ * Uso desde DataWeave:
+ *
+ * <pre>
+ * import java!com::traxion::validation::CartaPorteValidator
+ * ---
+ * CartaPorteValidator::validate(payload.^raw, p('carta.porte.validation.extended.enabled') == 'true')
+ * </pre>
+ */
+public class CartaPorteValidator {
+
+    private static final String ROOT = "carta_porte";
+    private static final String FIGURA_TRANSPORTE = "figura_transporte";
+    private static final String AUTOTRANSPORTE = "autotransporte";
+    private static final String MERCANCIAS = "mercancias";
+
+    private CartaPorteValidator() {
+    }
+
+    /**
+     * @param payload carta porte en JSON (InputStream, byte[], Reader o String)
+     * @param extended si se validan también vehículo y mercancías
+     * @return lista de violaciones, cada una con {@code field} y {@code message}; vacía si es válida
+     */
+    public static List<Map<String, Object>> validate(Object payload, boolean extended) {
+        Sections sections;
+        try (JsonParser parser = JsonValues.parser(payload)) {
+            sections = read(parser, extended);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error leyendo carta porte", e);
+        }
+        List<Map<String, Object>> violations = new ArrayList<>();
+        validateOperators(sections.figuraTransporte, violations);
+        if (extended) {
+            validateVehicle(sections.autotransporte, violations);
+            validateGoods(sections.mercancias, violations);
+        }
+        return violations;
+    }
+
+    private static Sections read(JsonParser parser, boolean extended) throws IOException {
+        Sections sections = new Sections();
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return sections;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (ROOT.equals(field) && token == JsonToken.START_OBJECT) {
+                readCartaPorte(parser, sections, extended);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return sections;
+    }
+
+    private static void readCartaPorte(JsonParser parser, Sections sections, boolean extended) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (FIGURA_TRANSPORTE.equals(field)) {
+                sections.figuraTransporte = JsonValues.read(parser);
+            } else if (extended && AUTOTRANSPORTE.equals(field)) {
+                sections.autotransporte = JsonValues.read(parser);
+            } else if (extended && MERCANCIAS.equals(field)) {
+                sections.mercancias = JsonValues.read(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void validateOperators(Object figuraTransporte, List<Map<String, Object>> violations) {
+        List<Object> operators = items(child(figuraTransporte, "operadores"));
+        for (int i = 0; i < operators.size(); i++) {
+            Object operator = operators.get(i);
+            String path = "carta_porte.figura_transporte.operadores[" + i + "]";
+            requireText(operator, "rfc", path, "rfc requerido para el operador", violations);
+            requireText(operator, "nombre", path, "nombre requerido para el operador", violations);
+            requireText(operator, "licencia", path, "licencia requerida para el operador", violations);
+        }
+    }
+
+    private static void validateVehicle(Object autotransporte, List<Map<String, Object>> violations) {
+        if (autotransporte == null) {
+            return;
+        }
+        String path = "carta_porte.autotransporte";
+        requireText(autotransporte, "perm_sct", path, "permiso SCT requerido para el vehiculo", violations);
+        requireText(autotransporte, "num_permiso_sct", path, "numero de permiso SCT requerido para el vehiculo", violations);
+        Object vehicle = child(autotransporte, "identificacion_vehicular");
+        String vehiclePath = path + ".identificacion_vehicular";
+        requireText(vehicle, "config_vehicular", vehiclePath, "configuracion vehicular requerida para el vehiculo", violations);
+        requireText(vehicle, "placa_vm", vehiclePath, "placa requerida para el vehiculo", violations);
+        requireText(vehicle, "anio_modelo_vm", vehiclePath, "anio modelo requerido para el vehiculo", violations);
+    }
+
+    private static void validateGoods(Object mercancias, List<Map<String, Object>> violations) {
+        if (mercancias == null) {
+            return;
+        }
+        List<Object> goods = items(child(mercancias, "mercancia"));
+        if (goods.isEmpty()) {
+            violations.add(violation("carta_porte.mercancias.mercancia", "se requiere al menos una mercancia"));
+        }
+        for (int i = 0; i < goods.size(); i++) {
+            Object item = goods.get(i);
+            String path = "carta_porte.mercancias.mercancia[" + i + "]";
+            requireText(item, "bienes_transp", path, "clave de bienes transportados requerida para la mercancia", violations);
+            requireText(item, "descripcion", path, "descripcion requerida para la mercancia", violations);
+            requireText(item, "clave_unidad", path, "clave de unidad requerida para la mercancia", violations);
+            requirePositive(item, "cantidad", path, "cantidad mayor a cero requerida para la mercancia", violations);
+            requirePositive(item, "peso_en_kg", path, "peso en kg mayor a cero requerido para la mercancia", violations);
+        }
+    }
+
+    /**
+     * Mismo criterio que {@code is-not-blank-string}: falla si falta, es null o solo tiene espacios.
+     */
+    private static void requireText(Object parent, String field, String path, String message,
+                                    List<Map<String, Object>> violations) {
+        Object value = child(parent, field);
+        if (value == null || (value instanceof String && ((String) value).trim().isEmpty())) {
+            violations.add(violation(path + "." + field, message));
+        }
+    }
+
+    private static void requirePositive(Object parent, String field, String path, String message,
+                                        List<Map<String, Object>> violations) {
+        Object value = child(parent, field);
+        BigDecimal number = null;
+        if (value instanceof BigDecimal) {
+            number = (BigDecimal) value;
+        } else if (value instanceof Number) {
+            number = new BigDecimal(value.toString());
+        } else if (value instanceof String) {
+            try {
+                number = new BigDecimal(((String) value).trim());
+            } catch (NumberFormatException e) {
+                number = null;
+            }
+        }
+        if (number == null || number.signum() <= 0) {
+            violations.add(violation(path + "." + field, message));
+        }
+    }
+
+    private static Object child(Object parent, String field) {
+        return parent instanceof Map ? ((Map<?, ?>) parent).get(field) : null;
+    }
+
+    /**
+     * Igual que el foreach de Mule: un objeto suelto cuenta como un elemento y null como ninguno.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Object> items(Object value) {
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        if (value instanceof List) {
+            return (List<Object>) value;
+        }
+        return Collections.singletonList(value);
+    }
+
+    private static Map<String, Object> violation(String field, String message) {
+        Map<String, Object> violation = new HashMap<>(4);
+        violation.put("field", field);
+        violation.put("message", message);
+        return violation;
+    }
+
+    private static final class Sections {
+        Object figuraTransporte;
+        Object autotransporte;
+        Object mercancias;
+    }
+}
@@ -0,0 +1,70 @@
+package com.traxion.admission;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Límite de cubetas en memoria y contadores de {@link TokenBuckets}.
+ */
+public class TokenBucketsTest {
+
+    @Test
+    public void rejectsAfterBurstAndCountsPerClient() {
+        String rules = "*|POST /counts=0.001/2";
+        assertTrue(allowed("alpha", "/counts", rules, 100));
+        assertTrue(allowed("alpha", "/counts", rules, 100));
+        assertFalse(allowed("alpha", "/counts", rules, 100));
+        assertTrue(allowed("beta", "/counts", rules, 100));
+
+        assertEquals(2L, count("alpha", "*|POST /counts", "allowed"));
+        assertEquals(1L, count("alpha", "*|POST /counts", "rejected"));
+        assertEquals(1L, count("beta", "*|POST /counts", "allowed"));
+    }
+
+    @Test
+    public void newClientsShareOtherBucketWhenFull() {
+        String rules = "*|POST /full=0.001/1";
+        int limit = TokenBuckets.size() + 1;
+        assertTrue(allowed("gamma", "/full", rules, limit));
+        // gamma no se recarga, así que no se puede descartar y delta cae en other
+        assertTrue(allowed("delta", "/full", rules, limit));
+        assertFalse(allowed("epsilon", "/full", rules, limit));
+
+        assertEquals(0L, count("delta", "*|POST /full", "allowed"));
+        assertEquals(1L, count("other", "*|POST /full", "allowed"));
+        assertEquals(1L, count("other", "*|POST /full", "rejected"));
+    }
+
+    @Test
+    public void refilledBucketsAreEvictedAndKeepTheirCounts() throws InterruptedException {
+        String rules = "*|POST /idle=1000/1";
+        assertTrue(allowed("zeta", "/idle", rules, 100000));
+        int limit = TokenBuckets.size();
+        // Deja pasar el intervalo mínimo entre barridos; zeta ya se recargó
+        Thread.sleep(1100L);
+        assertTrue(allowed("eta", "/idle", rules, limit));
+
+        assertEquals(0L, count("zeta", "*|POST /idle", "allowed"));
+        assertEquals(1L, count("eta", "*|POST /idle", "allowed"));
+        assertTrue(count("other", "*|POST /idle", "allowed") >= 1L);
+    }
+
+    private static boolean allowed(String client, String path, String rules, int maxBuckets) {
+        return (Boolean) TokenBuckets.tryAcquire(client, "POST", path, rules, 1, 1, maxBuckets).get("allowed");
+    }
+
+    private static long count(String client, String rule, String field) {
+        long total = 0L;
+        for (Map<String, Object> entry : TokenBuckets.stats()) {
+            if (client.equals(entry.get("client_id")) && rule.equals(entry.get("rule"))) {
+                total += (Long) entry.get(field);
+            }
+        }
+        return total;
+    }
+}
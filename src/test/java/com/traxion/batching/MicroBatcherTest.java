@@ -0,0 +1,165 @@
+package com.traxion.batching;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Resultado que reciben las peticiones agrupadas por {@link MicroBatcher}.
+ */
+public class MicroBatcherTest {
+
+    @Test
+    public void followerGetsTheLeaderResponse() throws Exception {
+        String name = "test-complete";
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Map<String, Object>> leader = executor.submit(
+                    () -> MicroBatcher.join(name, "k", "[{\"sku\":\"A\",\"qty\":1}]", settings(1000, 2, 60000)));
+            awaitOpen(name);
+            // El segundo elemento llena el lote y lo cierra sin esperar la ventana
+            Future<Map<String, Object>> follower = executor.submit(
+                    () -> MicroBatcher.join(name, "k", "[{\"sku\":\"A\",\"qty\":2}]", settings(1000, 2, 60000)));
+
+            Map<String, Object> batch = leader.get(10, TimeUnit.SECONDS);
+            assertEquals(MicroBatcher.LEADER, batch.get("status"));
+            // Gana el último elemento con la misma llave
+            assertEquals("[{\"sku\":\"A\",\"qty\":2}]", new String((byte[]) batch.get("items"), StandardCharsets.UTF_8));
+            MicroBatcher.complete((String) batch.get("id"), "{\"ok\":true}");
+
+            Map<String, Object> result = follower.get(10, TimeUnit.SECONDS);
+            assertEquals(MicroBatcher.COMPLETED, result.get("status"));
+            assertEquals(batch.get("id"), result.get("id"));
+            assertArrayEquals("{\"ok\":true}".getBytes(StandardCharsets.UTF_8), (byte[]) result.get("body"));
+            assertEquals(1L, stats(name).get("merged_items"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void followerGetsTheLeaderError() throws Exception {
+        String name = "test-fail";
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Map<String, Object>> leader = executor.submit(
+                    () -> MicroBatcher.join(name, "k", "[{\"sku\":\"A\"}]", settings(1000, 2, 60000)));
+            awaitOpen(name);
+            Future<Map<String, Object>> follower = executor.submit(
+                    () -> MicroBatcher.join(name, "k", "[{\"sku\":\"A\"}]", settings(1000, 2, 60000)));
+
+            Map<String, Object> batch = leader.get(10, TimeUnit.SECONDS);
+            assertTrue(MicroBatcher.fail((String) batch.get("id"), "TEP respondio 500"));
+
+            Map<String, Object> result = follower.get(10, TimeUnit.SECONDS);
+            assertEquals(MicroBatcher.FAILED, result.get("status"));
+            assertEquals("TEP respondio 500", result.get("error"));
+            assertEquals(1L, stats(name).get("failures"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void followerTimesOutWithoutAcceptingTheRequest() throws Exception {
+        String name = "test-timeout";
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Map<String, Object>> leader = executor.submit(
+                    () -> MicroBatcher.join(name, "k", "[{\"sku\":\"A\"}]", settings(1000, 2, 60000)));
+            awaitOpen(name);
+            Future<Map<String, Object>> follower = executor.submit(
+                    () -> MicroBatcher.join(name, "k", "[{\"sku\":\"B\"}]", settings(1000, 2, 20)));
+
+            Map<String, Object> batch = leader.get(10, TimeUnit.SECONDS);
+            Map<String, Object> result = follower.get(10, TimeUnit.SECONDS);
+            assertEquals(MicroBatcher.TIMEOUT, result.get("status"));
+            assertEquals(batch.get("id"), result.get("id"));
+            assertEquals(1L, stats(name).get("timed_out"));
+            MicroBatcher.complete((String) batch.get("id"), "{}");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void requestsWithoutWaitOrWithoutWaitSlotCallOnTheirOwn() throws Exception {
+        String name = "test-bypass";
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Map<String, Object>> leader = executor.submit(
+                    () -> MicroBatcher.join(name, "k", "[{\"sku\":\"A\"}]", settings(1000, 500, 60000)));
+            awaitOpen(name);
+            assertEquals(MicroBatcher.BYPASS, MicroBatcher.join(name, "k", "[{\"sku\":\"B\"}]", settings(1000, 500, 0))
+                    .get("status"));
+            Map<String, Object> noSlot = settings(1000, 500, 60000);
+            noSlot.put("maxWaiters", 0);
+            assertEquals(MicroBatcher.BYPASS, MicroBatcher.join(name, "k", "[{\"sku\":\"C\"}]", noSlot).get("status"));
+
+            Map<String, Object> batch = leader.get(10, TimeUnit.SECONDS);
+            // Sus elementos no entran al lote
+            assertEquals("[{\"sku\":\"A\"}]", new String((byte[]) batch.get("items"), StandardCharsets.UTF_8));
+            assertEquals(2L, stats(name).get("bypassed"));
+            MicroBatcher.complete((String) batch.get("id"), "{}");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void leaderWindowIsCapped() {
+        String name = "test-window";
+        long start = System.nanoTime();
+        Map<String, Object> batch = MicroBatcher.join(name, "k", "[{\"sku\":\"A\"}]", settings(600000, 500, 0));
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(MicroBatcher.LEADER, batch.get("status"));
+        assertTrue("esperó " + waited + " ms", waited < MicroBatcher.MAX_WINDOW_MILLIS + 5000L);
+        MicroBatcher.complete((String) batch.get("id"), "{}");
+    }
+
+    private static Map<String, Object> settings(long windowMillis, int maxItems, long waitMillis) {
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("windowMillis", windowMillis);
+        settings.put("maxItems", maxItems);
+        settings.put("waitMillis", waitMillis);
+        settings.put("maxWaiters", 8);
+        settings.put("mergeKeys", "sku");
+        return settings;
+    }
+
+    private static Map<String, Object> stats(String name) {
+        for (Map<String, Object> stats : MicroBatcher.stats()) {
+            if (name.equals(stats.get("batcher"))) {
+                return stats;
+            }
+        }
+        throw new AssertionError("sin estadisticas de " + name);
+    }
+
+    /**
+     * Espera a que el líder abra el lote.
+     */
+    private static void awaitOpen(String name) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            for (Map<String, Object> stats : MicroBatcher.stats()) {
+                if (name.equals(stats.get("batcher")) && ((Number) stats.get("open")).intValue() > 0) {
+                    return;
+                }
+            }
+            Thread.sleep(1L);
+        }
+        throw new AssertionError("el lider no abrio el lote de " + name);
+    }
+}
@@ -0,0 +1,76 @@
+package com.traxion.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Validación antes de guardar y vigencia de las llaves de {@link DocumentDiskCache}.
+ */
+public class DocumentDiskCacheTest {
+
+    private static final String DOCUMENT = "{\"documents\":[{\"name\":\"carta-porte.pdf\",\"url\":\"s3://bucket/a\"}]}";
+
+    private String dir;
+
+    @Before
+    public void setUp() throws IOException {
+        Path temp = Files.createTempDirectory("document-cache");
+        temp.toFile().deleteOnExit();
+        dir = temp.toString();
+    }
+
+    @Test
+    public void storesCompleteDocumentsOnly() {
+        assertEquals(true, store("L-1", "2024-03-01", DOCUMENT, 200).get("stored"));
+        assertNotNull(DocumentDiskCache.lookup(dir, "L-1", "2024-03-01", 60));
+
+        assertEquals(false, store("L-2", "", DOCUMENT, 200).get("stored"));
+        assertEquals(false, store("L-3", "2024-03-01", DOCUMENT, 202).get("stored"));
+        assertEquals(false, store("L-4", "2024-03-01", "{\"documents\":[{\"name\":\"carta", 200).get("stored"));
+        assertEquals(false, store("L-5", "2024-03-01", "{\"error\":\"NOT_READY\"}", 200).get("stored"));
+        assertNull(DocumentDiskCache.lookup(dir, "L-4", "2024-03-01", 60));
+        assertNull(DocumentDiskCache.lookup(dir, "L-2", "", 60));
+    }
+
+    @Test
+    public void rejectionReasons() {
+        byte[] complete = DOCUMENT.getBytes(StandardCharsets.UTF_8);
+        assertNull(DocumentDiskCache.rejection("L-1", "2024-03-01", 200, complete));
+        assertEquals("sin date", DocumentDiskCache.rejection("L-1", " ", 200, complete));
+        assertEquals("sin identifier", DocumentDiskCache.rejection(null, "2024-03-01", 200, complete));
+        assertEquals("status 206", DocumentDiskCache.rejection("L-1", "2024-03-01", 206, complete));
+        assertEquals("documento vacio", DocumentDiskCache.rejection("L-1", "2024-03-01", 200, new byte[0]));
+        assertEquals("contenido despues del documento", DocumentDiskCache.rejection("L-1", "2024-03-01", 200,
+                (DOCUMENT + "{}").getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void expiredKeysAreMissesAndFreeTheDocument() {
+        store("L-6", "2024-03-01", DOCUMENT, 200);
+        assertNotNull(DocumentDiskCache.lookup(dir, "L-6", "2024-03-01", 60));
+        assertNull(DocumentDiskCache.lookup(dir, "L-6", "2024-03-01", 0));
+        assertNull(DocumentDiskCache.lookup(dir, "L-6", "2024-03-01", 60));
+
+        for (Map<String, Object> entry : DocumentDiskCache.stats()) {
+            if (dir.equals(entry.get("dir"))) {
+                assertEquals(0, entry.get("documents"));
+                assertEquals(0L, entry.get("bytes"));
+                assertEquals(1L, entry.get("expirations"));
+            }
+        }
+    }
+
+    private Map<String, Object> store(String identifier, String date, String body, int status) {
+        return DocumentDiskCache.store(dir, identifier, date, body, status, 1024 * 1024);
+    }
+}
@@ -0,0 +1,118 @@
+package com.traxion.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.traxion.resilience.RequestWaits;
+
+/**
+ * Agrupación de cargas simultáneas y contadores de {@link ResponseCache}.
+ */
+public class ResponseCacheTest {
+
+    private static final String BODY = "{\"customer\":\"ISSSTE\"}";
+
+    @Test
+    public void concurrentLookupsWaitForTheLoad() throws Exception {
+        String cache = "test-coalesce";
+        assertEquals(ResponseCache.LOAD, status(ResponseCache.lookup(cache, "k", settings(60000))));
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<Map<String, Object>>> followers = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                followers.add(executor.submit(() -> ResponseCache.lookup(cache, "k", settings(60000))));
+            }
+            awaitWaiters(3);
+            ResponseCache.store(cache, "k", BODY);
+
+            for (Future<Map<String, Object>> follower : followers) {
+                Map<String, Object> result = follower.get(10, TimeUnit.SECONDS);
+                assertEquals(ResponseCache.HIT, status(result));
+                assertArrayEquals(BODY.getBytes(StandardCharsets.UTF_8), (byte[]) result.get("body"));
+            }
+            Map<String, Object> stats = stats(cache);
+            assertEquals(1L, stats.get("misses"));
+            assertEquals(3L, stats.get("coalesced"));
+            assertEquals(0L, stats.get("hits"));
+            assertEquals(0L, stats.get("bypasses"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void waiterTakesOverAnAbandonedLoad() throws Exception {
+        String cache = "test-abandon";
+        assertEquals(ResponseCache.LOAD, status(ResponseCache.lookup(cache, "k", settings(60000))));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Map<String, Object>> follower = executor.submit(() -> ResponseCache.lookup(cache, "k", settings(60000)));
+            awaitWaiters(1);
+            ResponseCache.abandon(cache, "k");
+
+            assertEquals(ResponseCache.LOAD, status(follower.get(10, TimeUnit.SECONDS)));
+            assertEquals(0L, stats(cache).get("coalesced"));
+            ResponseCache.abandon(cache, "k");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void bypassesWithoutWaitOrWithoutWaitSlot() {
+        String cache = "test-bypass";
+        assertEquals(ResponseCache.LOAD, status(ResponseCache.lookup(cache, "k", settings(60000))));
+        assertEquals(ResponseCache.BYPASS, status(ResponseCache.lookup(cache, "k", settings(0))));
+
+        Map<String, Object> noSlot = settings(60000);
+        noSlot.put("maxWaiters", 0);
+        assertEquals(ResponseCache.BYPASS, status(ResponseCache.lookup(cache, "k", noSlot)));
+        assertEquals(ResponseCache.BYPASS, status(ResponseCache.lookup(cache, "k", settings(20))));
+
+        Map<String, Object> stats = stats(cache);
+        assertEquals(3L, stats.get("bypasses"));
+        assertEquals(0L, stats.get("coalesced"));
+        ResponseCache.abandon(cache, "k");
+    }
+
+    private static Map<String, Object> settings(long waitMillis) {
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("ttlSeconds", 60);
+        settings.put("waitMillis", waitMillis);
+        settings.put("maxWaiters", 8);
+        return settings;
+    }
+
+    private static Object status(Map<String, Object> result) {
+        return result.get("status");
+    }
+
+    private static Map<String, Object> stats(String cache) {
+        for (Map<String, Object> stats : ResponseCache.stats()) {
+            if (cache.equals(stats.get("cache"))) {
+                return stats;
+            }
+        }
+        throw new AssertionError("sin estadisticas de " + cache);
+    }
+
+    private static void awaitWaiters(int waiters) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (((Number) RequestWaits.stats().get("waiting")).intValue() < waiters && System.nanoTime() < deadline) {
+            Thread.sleep(1L);
+        }
+        assertEquals(waiters, ((Number) RequestWaits.stats().get("waiting")).intValue());
+    }
+}
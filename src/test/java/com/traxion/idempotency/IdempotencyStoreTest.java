@@ -0,0 +1,108 @@
+package com.traxion.idempotency;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.traxion.resilience.RequestWaits;
+
+/**
+ * Registro, repetición y espera de reintentos en {@link IdempotencyStore}.
+ */
+public class IdempotencyStoreTest {
+
+    private static final String BODY = "{\"order\":\"OC-1\"}";
+
+    @Test
+    public void replaysTheStoredResponse() {
+        String key = "client POST /orders replay";
+        assertEquals(IdempotencyStore.NEW, status(IdempotencyStore.begin(key, BODY, settings(0))));
+        assertTrue(IdempotencyStore.complete(key, 201, "{\"id\":7}"));
+
+        Map<String, Object> replay = IdempotencyStore.begin(key, BODY, settings(0));
+        assertEquals(IdempotencyStore.REPLAY, status(replay));
+        assertEquals(201, replay.get("httpStatus"));
+        assertArrayEquals("{\"id\":7}".getBytes(StandardCharsets.UTF_8), (byte[]) replay.get("body"));
+        assertEquals(IdempotencyStore.MISMATCH, status(IdempotencyStore.begin(key, "{}", settings(0))));
+    }
+
+    @Test
+    public void retryWaitsForTheRequestInProgress() throws Exception {
+        String key = "client POST /orders wait";
+        assertEquals(IdempotencyStore.NEW, status(IdempotencyStore.begin(key, BODY, settings(0))));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Map<String, Object>> retry = executor.submit(() -> IdempotencyStore.begin(key, BODY, settings(60000)));
+            // El reintento queda esperando hasta que la primera guarda su respuesta
+            awaitWaiting(retry);
+            IdempotencyStore.complete(key, 200, "{\"ok\":true}");
+
+            Map<String, Object> replay = retry.get(10, TimeUnit.SECONDS);
+            assertEquals(IdempotencyStore.REPLAY, status(replay));
+            assertArrayEquals("{\"ok\":true}".getBytes(StandardCharsets.UTF_8), (byte[]) replay.get("body"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void waitingRetryRunsAgainAfterAbort() throws Exception {
+        String key = "client POST /orders abort";
+        assertEquals(IdempotencyStore.NEW, status(IdempotencyStore.begin(key, BODY, settings(0))));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Map<String, Object>> retry = executor.submit(() -> IdempotencyStore.begin(key, BODY, settings(60000)));
+            awaitWaiting(retry);
+            IdempotencyStore.abort(key);
+
+            assertEquals(IdempotencyStore.NEW, status(retry.get(10, TimeUnit.SECONDS)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void answersInProgressWithoutWaitOrWithoutWaitSlot() {
+        String key = "client POST /orders busy";
+        assertEquals(IdempotencyStore.NEW, status(IdempotencyStore.begin(key, BODY, settings(0))));
+        assertEquals(IdempotencyStore.IN_PROGRESS, status(IdempotencyStore.begin(key, BODY, settings(0))));
+
+        Map<String, Object> noSlot = settings(60000);
+        noSlot.put("maxWaiters", 0);
+        assertEquals(IdempotencyStore.IN_PROGRESS, status(IdempotencyStore.begin(key, BODY, noSlot)));
+        assertEquals(IdempotencyStore.IN_PROGRESS, status(IdempotencyStore.begin(key, BODY, settings(20))));
+        IdempotencyStore.abort(key);
+    }
+
+    private static Map<String, Object> settings(long waitMillis) {
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("waitMillis", waitMillis);
+        settings.put("maxWaiters", 8);
+        return settings;
+    }
+
+    private static Object status(Map<String, Object> result) {
+        return result.get("status");
+    }
+
+    /**
+     * Espera a que el reintento tome su lugar en {@link RequestWaits}.
+     */
+    private static void awaitWaiting(Future<?> retry) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (((Number) RequestWaits.stats().get("waiting")).intValue() == 0 && !retry.isDone()
+                && System.nanoTime() < deadline) {
+            Thread.sleep(1L);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.traxion.inventory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Agrupación por SKU de {@link InventorySnapshotStreamer} en memoria, con volcado a
+ * disco y con lotes ordenados.
+ */
+public class InventorySnapshotStreamerTest {
+
+    private static final String[] SKUS = {"7501000000012", "7501000000029", "7501000000036", "7501000000043"};
+
+    @Test
+    public void unsortedKeepsFirstAppearanceOrderInMemory() {
+        List<List<Map<String, Object>>> groups = collect(
+                InventorySnapshotStreamer.groups(snapshot(12), 1000, "false"));
+        assertEquals(4, groups.size());
+        for (int i = 0; i < SKUS.length; i++) {
+            assertEquals(SKUS[i], groups.get(i).get(0).get("PRODUCT_NUMBER"));
+            assertEquals(3, groups.get(i).size());
+        }
+    }
+
+    @Test
+    public void spilledGroupsAreCompleteAndFilesAreDeleted() {
+        int before = spillFiles();
+        Iterator<List<Map<String, Object>>> iterator = InventorySnapshotStreamer.groups(
+                new ByteArrayInputStream(snapshot(403).getBytes(StandardCharsets.UTF_8)), 10, false);
+        assertTrue(iterator.hasNext());
+        assertTrue("sin archivos de volcado", spillFiles() > before);
+
+        Map<Object, List<Object>> lotsBySku = new HashMap<>();
+        int groups = 1;
+        for (Map<String, Object> lot : iterator.next()) {
+            lotsBySku.computeIfAbsent(lot.get("PRODUCT_NUMBER"), sku -> new ArrayList<>()).add(lot.get("LOT"));
+        }
+        while (iterator.hasNext()) {
+            List<Map<String, Object>> group = iterator.next();
+            Object sku = group.get(0).get("PRODUCT_NUMBER");
+            assertFalse("SKU repetido " + sku, lotsBySku.containsKey(sku));
+            List<Object> lots = new ArrayList<>();
+            for (Map<String, Object> lot : group) {
+                assertEquals(sku, lot.get("PRODUCT_NUMBER"));
+                lots.add(lot.get("LOT"));
+            }
+            lotsBySku.put(sku, lots);
+            groups++;
+        }
+        assertEquals(4, groups);
+        assertEquals(101, lotsBySku.get(SKUS[0]).size());
+        assertEquals(100, lotsBySku.get(SKUS[3]).size());
+        assertEquals(before, spillFiles());
+    }
+
+    @Test
+    public void closingEarlyDeletesSpillFiles() throws Exception {
+        int before = spillFiles();
+        Iterator<List<Map<String, Object>>> iterator = InventorySnapshotStreamer.groups(snapshot(200), 10, false);
+        iterator.next();
+        ((Closeable) iterator).close();
+        assertFalse(iterator.hasNext());
+        assertEquals(before, spillFiles());
+    }
+
+    @Test
+    public void sortedEmitsEachRun() {
+        String json = "{\"UC_TRX_INVENTORY_SNAPSHOT\":{\"header\":{\"site\":\"CDMX\"},\"inventory_snapshot\":["
+                + "{\"PRODUCT_NUMBER\":\"A\",\"LOT\":\"1\"},{\"PRODUCT_NUMBER\":\"A\",\"LOT\":\"2\"},"
+                + "7,{\"PRODUCT_NUMBER\":\"B\",\"LOT\":\"3\"}]}}";
+        List<List<Map<String, Object>>> groups = collect(InventorySnapshotStreamer.groups(json, null, "true"));
+        assertEquals(2, groups.size());
+        assertEquals(Arrays.asList(2, 1), Arrays.asList(groups.get(0).size(), groups.get(1).size()));
+        assertEquals("3", groups.get(1).get(0).get("LOT"));
+    }
+
+    @Test
+    public void missingArrayHasNoGroups() {
+        assertFalse(InventorySnapshotStreamer.groups("{\"UC_TRX_INVENTORY_SNAPSHOT\":{}}", null, false).hasNext());
+        assertFalse(InventorySnapshotStreamer.groups("[]", null, false).hasNext());
+    }
+
+    /**
+     * Snapshot con los SKUs intercalados, para que ningún grupo quede contiguo.
+     */
+    private static String snapshot(int lots) {
+        StringBuilder json = new StringBuilder("{\"UC_TRX_INVENTORY_SNAPSHOT\":{\"inventory_snapshot\":[");
+        for (int i = 0; i < lots; i++) {
+            json.append(i > 0 ? "," : "").append("{\"PRODUCT_NUMBER\":\"").append(SKUS[i % SKUS.length])
+                    .append("\",\"LOT\":\"L").append(i).append("\",\"QTY\":").append(i % 7).append('}');
+        }
+        return json.append("]}}").toString();
+    }
+
+    private static List<List<Map<String, Object>>> collect(Iterator<List<Map<String, Object>>> iterator) {
+        List<List<Map<String, Object>>> groups = new ArrayList<>();
+        iterator.forEachRemaining(groups::add);
+        return groups;
+    }
+
+    private static int spillFiles() {
+        File[] files = new File(System.getProperty("java.io.tmpdir"))
+                .listFiles((dir, name) -> name.startsWith("inventory-snapshot-"));
+        return files == null ? 0 : files.length;
+    }
+}
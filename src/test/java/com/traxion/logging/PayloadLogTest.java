@@ -0,0 +1,85 @@
+package com.traxion.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Mensajes de {@link PayloadLog} según las reglas de cada flujo.
+ */
+public class PayloadLogTest {
+
+    private static final String ORDER = "{\"order\":\"OC-1\",\"qty\":3}";
+
+    @Test
+    public void summaryWritesTheFirstBytesOfSampledPayloads() {
+        assertEquals("flow=f type=string size=24 payload={\"order\":...",
+                PayloadLog.summary("f", ORDER, "*=summary/9/1"));
+        assertEquals("flow=f type=bytes size=24 payload=" + ORDER,
+                PayloadLog.summary("f", ORDER.getBytes(StandardCharsets.UTF_8), "*=summary/512/1"));
+    }
+
+    @Test
+    public void unsampledPayloadsOnlyReportTheirSize() {
+        assertEquals("flow=f type=string size=24", PayloadLog.summary("f", ORDER, "*=summary/512/0"));
+        assertEquals("flow=f type=ArrayList items=2",
+                PayloadLog.summary("f", new ArrayList<>(Arrays.asList(1, 2)), "*=summary/512/0"));
+        assertEquals("flow=f", PayloadLog.summary("f", ORDER, "*=off"));
+    }
+
+    @Test
+    public void hashCoversOnlyTheLoggedPrefix() throws Exception {
+        assertEquals("flow=f type=string size=24 sha256=" + sha256(ORDER),
+                PayloadLog.summary("f", ORDER, "*=hash/512/1"));
+        assertEquals("flow=f type=string size=24 sha256_prefix=" + sha256(ORDER.substring(0, 9)),
+                PayloadLog.summary("f", ORDER, "*=hash/9/1"));
+    }
+
+    @Test
+    public void flowRuleWinsOverWildcard() {
+        String rules = "*=off, orders=summary/5/1";
+        assertEquals("flow=orders type=string size=24 payload={\"ord...", PayloadLog.summary("orders", ORDER, rules));
+        assertEquals("flow=other", PayloadLog.summary("other", ORDER, rules));
+        // Sin reglas: summary de 512 bytes con muestreo del 10 %
+        assertTrue(PayloadLog.summary("f", ORDER, "").startsWith("flow=f type=string size=24"));
+    }
+
+    @Test
+    public void repeatableStreamIsReadAndReset() throws IOException {
+        InputStream in = new ByteArrayInputStream(ORDER.getBytes(StandardCharsets.UTF_8));
+        assertEquals("flow=f type=stream size=>9 payload={\"order\":...", PayloadLog.summary("f", in, "*=summary/9/1"));
+        assertEquals("flow=f type=stream size=24 payload=" + ORDER, PayloadLog.summary("f", in, "*=summary/512/1"));
+        assertEquals('{', in.read());
+    }
+
+    @Test
+    public void nonRepeatableStreamIsNotConsumed() throws IOException {
+        InputStream in = new FilterInputStream(new ByteArrayInputStream(ORDER.getBytes(StandardCharsets.UTF_8))) {
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        };
+        assertEquals("flow=f type=stream", PayloadLog.summary("f", in, "*=summary/512/1"));
+        assertEquals("flow=f payload=<stream>", PayloadLog.summary("f", in, "*=full"));
+        assertEquals('{', in.read());
+    }
+
+    private static String sha256(String text) throws Exception {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8))) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
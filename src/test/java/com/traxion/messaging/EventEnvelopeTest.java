@@ -0,0 +1,106 @@
+package com.traxion.messaging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.traxion.json.JsonValues;
+
+/**
+ * Sobre que arma {@link EventEnvelope} alrededor del payload ya serializado.
+ */
+public class EventEnvelopeTest {
+
+    @Test
+    public void wrapsThePayloadWithOneClockReading() throws IOException {
+        long before = System.currentTimeMillis();
+        byte[] envelope = EventEnvelope.encode("{\"order\":\"OC-1\",\"qty\":3}", "CREATE", "PISA", "PISA", "1");
+        String json = new String(envelope, StandardCharsets.UTF_8);
+
+        assertTrue(json, json.startsWith("{\"payload\":{\"order\":\"OC-1\",\"qty\":3},\"origin_timestamp\":"));
+        assertTrue(json, json.endsWith(",\"project\":\"PISA\",\"company\":\"PISA\",\"version\":\"1\"}"));
+        Map<?, ?> parsed = parse(envelope);
+        assertEquals("CREATE", parsed.get("event"));
+        assertEquals(parsed.get("origin_timestamp"), parsed.get("publish_at"));
+        assertTrue(((Number) parsed.get("origin_timestamp")).longValue() >= before);
+    }
+
+    @Test
+    public void trimsBomAndWhitespaceAndWritesNullForEmptyPayloads() throws IOException {
+        byte[] withBom = "\uFEFF \n[1,2]\r\n".getBytes(StandardCharsets.UTF_8);
+        assertTrue(new String(EventEnvelope.encode(withBom, "E", null, null, null), StandardCharsets.UTF_8)
+                .startsWith("{\"payload\":[1,2],"));
+        assertEquals(null, parse(EventEnvelope.encode(null, "E", "P", "C", "1")).get("payload"));
+        assertEquals(null, parse(EventEnvelope.encode("  ", "E", "P", "C", "1")).get("payload"));
+        assertEquals(null, parse(EventEnvelope.encode("{}", "E", null, "C", "1")).get("project"));
+    }
+
+    @Test
+    public void escapesEnvelopeValues() throws IOException {
+        Map<?, ?> parsed = parse(EventEnvelope.encode("1", "LOAD \"EVENTS\"", "PISA\\MX", "Señal", "1"));
+        assertEquals("LOAD \"EVENTS\"", parsed.get("event"));
+        assertEquals("PISA\\MX", parsed.get("project"));
+        assertEquals("Señal", parsed.get("company"));
+    }
+
+    @Test
+    public void largeStreamsDoNotLeakIntoTheNextMessage() throws IOException {
+        StringBuilder large = new StringBuilder("[");
+        for (int i = 0; i < 100000; i++) {
+            large.append(i > 0 ? "," : "").append("{\"sku\":").append(i).append('}');
+        }
+        String payload = large.append(']').toString();
+        byte[] envelope = EventEnvelope.encode(new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8)),
+                "E", "P", "C", "1");
+        assertEquals(100000, ((List<?>) parse(envelope).get("payload")).size());
+
+        String small = new String(EventEnvelope.encode("{\"a\":1}", "E", "P", "C", "1"), StandardCharsets.UTF_8);
+        assertTrue(small, small.startsWith("{\"payload\":{\"a\":1},"));
+        assertTrue(small.length() < 200);
+    }
+
+    @Test
+    public void threadsDoNotShareBuffers() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                String order = "{\"order\":\"OC-" + t + "\"}";
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        String json = new String(EventEnvelope.encode(order, "E", "P", "C", "1"), StandardCharsets.UTF_8);
+                        if (!json.startsWith("{\"payload\":" + order + ",")) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Map<?, ?> parse(byte[] json) throws IOException {
+        try (JsonParser parser = JsonValues.parser(json)) {
+            parser.nextToken();
+            return (Map<?, ?>) JsonValues.read(parser);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.traxion.messaging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Conteo de permisos y Retry-After de {@link PublishBudget}.
+ */
+public class PublishBudgetTest {
+
+    @Test
+    public void rejectsAtTheLimitUntilReleased() {
+        String publisher = "test-limit";
+        assertTrue(PublishBudget.tryAcquire(publisher, 2));
+        assertTrue(PublishBudget.tryAcquire(publisher, 2));
+        assertFalse(PublishBudget.tryAcquire(publisher, 2));
+
+        assertEquals(1, PublishBudget.release(publisher));
+        assertTrue(PublishBudget.tryAcquire(publisher, 2));
+        assertEquals(1, PublishBudget.release(publisher));
+        assertEquals(0, PublishBudget.release(publisher));
+
+        assertEquals(0, PublishBudget.stats(publisher).get("outstanding"));
+        assertEquals(3L, PublishBudget.stats(publisher).get("acquired"));
+        assertEquals(1L, PublishBudget.stats(publisher).get("rejected"));
+    }
+
+    @Test
+    public void extraReleaseDoesNotGrantPermits() {
+        String publisher = "test-extra-release";
+        assertEquals(0, PublishBudget.release(publisher));
+        assertTrue(PublishBudget.tryAcquire(publisher, 1));
+        assertFalse(PublishBudget.tryAcquire(publisher, 1));
+        PublishBudget.release(publisher);
+    }
+
+    @Test
+    public void concurrentPublishersNeverExceedTheLimit() throws Exception {
+        String publisher = "test-concurrent";
+        int limit = 5;
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch ready = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < 16; t++) {
+                results.add(executor.submit(() -> {
+                    ready.await();
+                    int granted = 0;
+                    for (int i = 0; i < 500; i++) {
+                        if (PublishBudget.tryAcquire(publisher, limit)) {
+                            granted++;
+                            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                            inFlight.decrementAndGet();
+                            PublishBudget.release(publisher);
+                        }
+                    }
+                    return granted;
+                }));
+            }
+            ready.countDown();
+            long granted = 0;
+            for (Future<Integer> result : results) {
+                granted += result.get(10, TimeUnit.SECONDS);
+            }
+            assertTrue("pico de " + peak.get(), peak.get() <= limit);
+            assertEquals(0, PublishBudget.stats(publisher).get("outstanding"));
+            assertEquals(granted, PublishBudget.stats(publisher).get("acquired"));
+            assertEquals(16L * 500 - granted, PublishBudget.stats(publisher).get("rejected"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void retryAfterIsCappedWithoutDrainHistory() {
+        String publisher = "test-retry-after";
+        assertTrue(PublishBudget.tryAcquire(publisher, 10));
+        assertEquals(30, PublishBudget.retryAfterSeconds(publisher, null));
+        assertEquals(7, PublishBudget.retryAfterSeconds(publisher, 7));
+
+        PublishBudget.release(publisher);
+        PublishBudget.release(publisher);
+        // Sin publicaciones en curso no hay nada que drenar
+        assertEquals(1, PublishBudget.retryAfterSeconds(publisher, 30));
+    }
+}
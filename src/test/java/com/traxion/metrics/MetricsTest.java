@@ -0,0 +1,50 @@
+package com.traxion.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Nombre de ruta y salida de texto de {@link Metrics}.
+ */
+public class MetricsTest {
+
+    @Test
+    public void routeIsTheResourceTemplate() {
+        assertEquals("PATCH /oms/orders/REMISSION/{tracking_id}", Metrics.route(
+                "patch:\\oms\\orders\\REMISSION\\(tracking_id):application\\json:traxion-pharma-api-config", 100));
+        assertEquals("GET /tms/carta-porte/jobs/{job_id}",
+                Metrics.route("get:\\tms\\carta-porte\\jobs\\(job_id):traxion-pharma-api-config", 100));
+    }
+
+    @Test
+    public void flowsOutsideApikitAreUnrouted() {
+        assertEquals(Metrics.UNROUTED, Metrics.route(null, 100));
+        assertEquals(Metrics.UNROUTED, Metrics.route("traxion-pharma-api-main", 100));
+    }
+
+    @Test
+    public void scrapeHasStatusesAndCumulativeBuckets() {
+        String route = Metrics.route("post:\\test\\metrics\\(id):traxion-pharma-api-config", 1000);
+        long thirtyMillisAgo = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(30L);
+        Metrics.request(route, 201, thirtyMillisAgo);
+        Metrics.request(route, 201, System.nanoTime());
+        Metrics.request(route, 429, System.nanoTime());
+        Metrics.downstream(route, "system.wms", thirtyMillisAgo);
+
+        String out = Metrics.scrape(null);
+        String labels = "route=\"POST /test/metrics/{id}\"";
+        assertTrue(out.contains("traxion_http_requests_total{" + labels + ",status=\"201\"} 2\n"));
+        assertTrue(out.contains("traxion_http_requests_total{" + labels + ",status=\"429\"} 1\n"));
+        // La muestra de 30 ms entra desde la cubeta de 50 ms y las siguientes la acumulan
+        assertTrue(out.contains("traxion_http_request_duration_seconds_bucket{" + labels + ",le=\"0.025\"} 2\n"));
+        assertTrue(out.contains("traxion_http_request_duration_seconds_bucket{" + labels + ",le=\"0.05\"} 3\n"));
+        assertTrue(out.contains("traxion_http_request_duration_seconds_bucket{" + labels + ",le=\"+Inf\"} 3\n"));
+        assertTrue(out.contains("traxion_http_request_duration_seconds_count{" + labels + "} 3\n"));
+        assertTrue(out.contains("traxion_downstream_duration_seconds_count{" + labels
+                + ",dependency=\"system.wms\"} 1\n"));
+    }
+}
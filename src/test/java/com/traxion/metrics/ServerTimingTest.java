@@ -0,0 +1,76 @@
+package com.traxion.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Valor del header {@code Server-Timing} que arma {@link ServerTiming}.
+ *
+ * Las duraciones reales dependen del reloj, así que se revisa la forma del header y
+ * el orden de las etapas, no los milisegundos exactos.
+ */
+public class ServerTimingTest {
+
+    private static final String DUR = ";dur=\\d+\\.\\d";
+
+    @Test
+    public void stagesInFixedOrderWithTotal() {
+        ServerTiming timing = ServerTiming.begin();
+        long start = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(20L);
+        assertTrue(ServerTiming.add(timing, "downstream", start) >= 20L);
+        ServerTiming.add(timing, "downstream", System.nanoTime());
+        ServerTiming.add(timing, "admission", System.nanoTime());
+
+        String header = ServerTiming.header(timing, start);
+        assertTrue(header, header.matches("admission" + DUR + ", downstream" + DUR + ";desc=\"2 calls\", total" + DUR));
+    }
+
+    @Test
+    public void unknownStagesAndMissingStartAreIgnored() {
+        ServerTiming timing = ServerTiming.begin();
+        assertEquals(0L, ServerTiming.add(timing, "cache", System.nanoTime()));
+        assertEquals(0L, ServerTiming.add(timing, "validation", null));
+        assertEquals("", ServerTiming.header(timing, null));
+    }
+
+    @Test
+    public void disabledTimingIsNoOp() {
+        assertEquals(0L, ServerTiming.add(null, "downstream", System.nanoTime()));
+        assertNull(ServerTiming.header(null, System.nanoTime()));
+    }
+
+    @Test
+    public void durationHasOneDecimal() {
+        ServerTiming timing = ServerTiming.begin();
+        ServerTiming.add(timing, "publish", System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(1500L));
+        String header = ServerTiming.header(timing, null);
+        assertTrue(header, header.matches("publish;dur=15\\d\\d\\.\\d"));
+    }
+
+    @Test
+    public void parallelRoutesCountEveryCall() throws Exception {
+        ServerTiming timing = ServerTiming.begin();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch done = new CountDownLatch(400);
+        try {
+            for (int i = 0; i < 400; i++) {
+                executor.execute(() -> {
+                    ServerTiming.add(timing, "downstream", System.nanoTime());
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(ServerTiming.header(timing, null).endsWith(";desc=\"400 calls\""));
+    }
+}
@@ -0,0 +1,63 @@
+package com.traxion.pubsub;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Umbral de compresión de {@link PayloadCompression} y lectura del lado del suscriptor.
+ */
+public class PayloadCompressionTest {
+
+    private static final String MESSAGE = "{\"event\":\"stock_update\",\"sku\":\"7501000000012\",\"qty\":12}";
+
+    @Test
+    public void compressesFromTheThreshold() {
+        int size = MESSAGE.getBytes(StandardCharsets.UTF_8).length;
+        assertEquals(PayloadCompression.IDENTITY, PayloadCompression.encode(MESSAGE, size + 1).get("contentEncoding"));
+        assertEquals(PayloadCompression.GZIP, PayloadCompression.encode(MESSAGE, size).get("contentEncoding"));
+        assertEquals(PayloadCompression.IDENTITY, PayloadCompression.encode(MESSAGE, 0).get("contentEncoding"));
+        assertEquals(PayloadCompression.IDENTITY, PayloadCompression.encode(MESSAGE, null).get("contentEncoding"));
+        assertEquals(PayloadCompression.GZIP, PayloadCompression.encode(MESSAGE, "10").get("contentEncoding"));
+    }
+
+    @Test
+    public void identityKeepsTheOriginalBytes() {
+        byte[] raw = MESSAGE.getBytes(StandardCharsets.UTF_8);
+        Map<String, Object> encoded = PayloadCompression.encode(raw, 1024 * 1024);
+        assertArrayEquals(raw, (byte[]) encoded.get("body"));
+        assertEquals(MESSAGE, PayloadCompression.decode(encoded.get("body"), PayloadCompression.IDENTITY));
+    }
+
+    @Test
+    public void decodeRestoresCompressedMessages() {
+        StringBuilder large = new StringBuilder("[");
+        for (int i = 0; i < 500; i++) {
+            large.append(i > 0 ? "," : "").append(MESSAGE);
+        }
+        String message = large.append(']').toString();
+        byte[] body = (byte[]) PayloadCompression.encode(new ByteArrayInputStream(
+                message.getBytes(StandardCharsets.UTF_8)), 1024).get("body");
+
+        assertTrue(PayloadCompression.isGzip(body));
+        assertTrue(body.length < message.length() / 10);
+        assertEquals(message, PayloadCompression.decode(body, "GZIP"));
+        // Sin atributo se reconoce por la firma gzip
+        assertEquals(message, PayloadCompression.decode(body, null));
+    }
+
+    @Test
+    public void plainTextIsNotMistakenForGzip() {
+        assertFalse(PayloadCompression.isGzip(MESSAGE.getBytes(StandardCharsets.UTF_8)));
+        assertFalse(PayloadCompression.isGzip(null));
+        assertEquals(MESSAGE, PayloadCompression.decode(MESSAGE, null));
+        assertEquals("", PayloadCompression.decode(null, null));
+    }
+}
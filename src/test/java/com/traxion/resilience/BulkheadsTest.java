@@ -0,0 +1,195 @@
+package com.traxion.resilience;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Conteo de lugares de {@link Bulkheads}, incluidas las respuestas en streaming.
+ */
+public class BulkheadsTest {
+
+    @Test
+    public void rejectsWhenFullAndQueueIsEmpty() {
+        String name = "test-limit";
+        assertTrue(Bulkheads.tryAcquire(name, 2, 0, 0));
+        assertTrue(Bulkheads.tryAcquire(name, 2, 0, 0));
+        assertFalse(Bulkheads.tryAcquire(name, 2, 0, 0));
+
+        assertEquals(1, Bulkheads.release(name));
+        assertTrue(Bulkheads.tryAcquire(name, 2, 0, 0));
+        assertEquals(1, Bulkheads.release(name));
+        assertEquals(0, Bulkheads.release(name));
+        assertEquals(0, Bulkheads.release(name));
+        assertEquals(0, Bulkheads.release("test-never-acquired"));
+
+        Map<String, Object> stats = stats(name);
+        assertEquals(3L, stats.get("accepted"));
+        assertEquals(1L, stats.get("rejected"));
+        assertEquals(2, stats.get("peak_in_flight"));
+        // Un release de más no da lugares extra
+        assertTrue(Bulkheads.tryAcquire(name, 2, 0, 0));
+        assertTrue(Bulkheads.tryAcquire(name, 2, 0, 0));
+        assertFalse(Bulkheads.tryAcquire(name, 2, 0, 0));
+        Bulkheads.release(name);
+        Bulkheads.release(name);
+    }
+
+    @Test
+    public void queuedRequestTakesTheReleasedSlot() throws Exception {
+        String name = "test-queue";
+        assertTrue(Bulkheads.tryAcquire(name, 1, 1, 0));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> queued = executor.submit(() -> Bulkheads.tryAcquire(name, 1, 1, 60000));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while ((Integer) stats(name).get("queued") == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1L);
+            }
+            // La fila tiene un solo lugar: la siguiente se rechaza sin esperar
+            assertFalse(Bulkheads.tryAcquire(name, 1, 1, 60000));
+            Bulkheads.release(name);
+
+            assertTrue(queued.get(10, TimeUnit.SECONDS));
+            assertEquals(1, inFlight(name));
+            assertEquals(1L, stats(name).get("queued_total"));
+            Bulkheads.release(name);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void queueWaitIsCapped() {
+        String name = "test-wait-cap";
+        assertTrue(Bulkheads.tryAcquire(name, 1, 1, 0));
+        long start = System.nanoTime();
+        assertFalse(Bulkheads.tryAcquire(name, 1, 1, 600000));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 10000);
+        assertEquals(1L, stats(name).get("timed_out"));
+        Bulkheads.release(name);
+    }
+
+    @Test
+    public void concurrentCallersNeverExceedTheLimit() throws Exception {
+        String name = "test-concurrent";
+        int limit = 4;
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch ready = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(12);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < 12; t++) {
+                results.add(executor.submit(() -> {
+                    ready.await();
+                    int granted = 0;
+                    for (int i = 0; i < 500; i++) {
+                        if (Bulkheads.tryAcquire(name, limit, 2, 1)) {
+                            granted++;
+                            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                            inFlight.decrementAndGet();
+                            Bulkheads.release(name);
+                        }
+                    }
+                    return granted;
+                }));
+            }
+            ready.countDown();
+            long granted = 0;
+            for (Future<Integer> result : results) {
+                granted += result.get(30, TimeUnit.SECONDS);
+            }
+            assertTrue("pico de " + peak.get(), peak.get() <= limit);
+            Map<String, Object> stats = stats(name);
+            assertEquals(0, stats.get("in_flight"));
+            assertEquals(0, stats.get("queued"));
+            assertEquals(granted, stats.get("accepted"));
+            assertEquals(12L * 500 - granted, stats.get("rejected"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void streamHoldsTheSlotUntilClosed() throws Exception {
+        String name = "test-stream-close";
+        assertTrue(Bulkheads.tryAcquire(name, 1, 0, 0));
+        InputStream body = (InputStream) Bulkheads.releaseOnClose(name, new ByteArrayInputStream(new byte[64]));
+        assertEquals(1, inFlight(name));
+        assertFalse(Bulkheads.tryAcquire(name, 1, 0, 0));
+
+        body.read(new byte[16]);
+        assertEquals(1, inFlight(name));
+        body.close();
+        body.close();
+        assertEquals(0, inFlight(name));
+        assertTrue(Bulkheads.tryAcquire(name, 1, 0, 0));
+        Bulkheads.release(name);
+    }
+
+    @Test
+    public void streamReleasesAtEndOfBody() throws Exception {
+        String name = "test-stream-eof";
+        assertTrue(Bulkheads.tryAcquire(name, 2, 0, 0));
+        InputStream body = (InputStream) Bulkheads.releaseOnClose(name, new ByteArrayInputStream(new byte[8]));
+        byte[] buffer = new byte[16];
+        while (body.read(buffer) >= 0) {
+            assertEquals(1, inFlight(name));
+        }
+        assertEquals(0, inFlight(name));
+        body.close();
+        assertEquals(0, inFlight(name));
+    }
+
+    @Test
+    public void unsentStreamIsReleasedOnce() {
+        String name = "test-stream-error";
+        assertTrue(Bulkheads.tryAcquire(name, 2, 0, 0));
+        assertTrue(Bulkheads.tryAcquire(name, 2, 0, 0));
+        Object body = Bulkheads.releaseOnClose(name, new ByteArrayInputStream(new byte[8]));
+
+        assertTrue(Bulkheads.releaseStream(body));
+        assertFalse(Bulkheads.releaseStream(body));
+        assertEquals(1, inFlight(name));
+        assertFalse(Bulkheads.releaseStream("{}"));
+        Bulkheads.release(name);
+    }
+
+    @Test
+    public void bodyWithoutStreamReleasesRightAway() {
+        String name = "test-stream-bytes";
+        assertTrue(Bulkheads.tryAcquire(name, 1, 0, 0));
+        byte[] bytes = new byte[4];
+        assertSame(bytes, Bulkheads.releaseOnClose(name, bytes));
+        assertEquals(0, inFlight(name));
+    }
+
+    private static int inFlight(String name) {
+        return (Integer) stats(name).get("in_flight");
+    }
+
+    private static Map<String, Object> stats(String name) {
+        for (Map<String, Object> stats : Bulkheads.stats()) {
+            if (name.equals(stats.get("bulkhead"))) {
+                return stats;
+            }
+        }
+        throw new AssertionError("sin estadisticas de " + name);
+    }
+}
@@ -0,0 +1,114 @@
+package com.traxion.resilience;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Timeout adaptativo por escalones y espera entre reintentos de {@link CallPolicy}.
+ */
+public class CallPolicyTest {
+
+    @Test
+    public void timeoutsAreSampledAtTheTimeout() {
+        String operation = "test-sampled";
+        for (int i = 0; i < 10; i++) {
+            CallPolicy.end(operation, System.nanoTime(), true);
+        }
+        assertTier("fast", 15000L, operation);
+        assertEquals(20000L, CallPolicy.timeout(operation, System.nanoTime(), 20000L));
+        CallPolicy.end(operation, System.nanoTime(), true);
+        // p99 de 12 muestras es la más lenta: 20 s x 2 = 40 s, escalón de 60 s
+        assertTier("standard", 60000L, operation);
+        CallPolicy.timeout(operation, System.nanoTime(), 45000L);
+        assertTier(CallPolicy.MAX_TIER, 600000L, operation);
+    }
+
+    @Test
+    public void streakOfTimeoutsUsesMaximumUntilSuccess() {
+        String operation = "test-streak";
+        for (int i = 0; i < 200; i++) {
+            CallPolicy.end(operation, System.nanoTime(), true);
+        }
+        assertTier("fast", 15000L, operation);
+        for (int i = 0; i < 3; i++) {
+            CallPolicy.timeout(operation, System.nanoTime(), 15000L);
+        }
+        assertTier(CallPolicy.MAX_TIER, 600000L, operation);
+        assertEquals(3, stat(operation, "timeout_streak"));
+        CallPolicy.end(operation, System.nanoTime(), true);
+        assertTier("standard", 60000L, operation);
+        assertEquals(60000L, stat(operation, "timeout_millis"));
+    }
+
+    @Test
+    public void fixedOperationsAlwaysUseMaximum() {
+        String operation = "bill-of-lading";
+        for (int i = 0; i < 20; i++) {
+            CallPolicy.end(operation, System.nanoTime(), true);
+        }
+        Map<String, Object> settings = settings();
+        settings.put("fixedOperations", "orders, bill-of-lading");
+        assertEquals(CallPolicy.MAX_TIER, CallPolicy.start(operation, 1, settings).get("tier"));
+        assertTier("fast", 15000L, operation);
+    }
+
+    @Test
+    public void withoutTiersEveryCallUsesMaximum() {
+        String operation = "test-no-tiers";
+        for (int i = 0; i < 20; i++) {
+            CallPolicy.end(operation, System.nanoTime(), true);
+        }
+        Map<String, Object> settings = settings();
+        settings.remove("timeoutTiers");
+        Map<String, Object> policy = CallPolicy.start(operation, 2, settings);
+        assertEquals(CallPolicy.MAX_TIER, policy.get("tier"));
+        assertEquals(600000L, policy.get("timeoutMillis"));
+    }
+
+    @Test
+    public void backoffWaitsUpToTheCeiling() {
+        long before = System.nanoTime();
+        long millis = CallPolicy.backoff(3, 10, 25);
+        assertTrue(millis >= 0L && millis <= 25L);
+        assertTrue(System.nanoTime() - before >= TimeUnit.MILLISECONDS.toNanos(millis));
+        assertEquals(0L, CallPolicy.backoff(1, 0, 2000));
+    }
+
+    private static void assertTier(String tier, long timeoutMillis, String operation) {
+        Map<String, Object> policy = CallPolicy.start(operation, 2, settings());
+        assertEquals(tier, policy.get("tier"));
+        assertEquals(timeoutMillis, policy.get("timeoutMillis"));
+    }
+
+    private static Map<String, Object> settings() {
+        Map<String, Object> tiers = new HashMap<>();
+        tiers.put("fast", 15000);
+        tiers.put("standard", "60000");
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("minTimeoutMillis", 1000);
+        settings.put("maxTimeoutMillis", 600000);
+        settings.put("minSamples", 10);
+        settings.put("percentile", 0.99);
+        settings.put("multiplier", 2);
+        settings.put("timeoutStreak", 3);
+        settings.put("timeoutTiers", tiers);
+        return settings;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object stat(String operation, String field) {
+        for (Map<String, Object> entry : (List<Map<String, Object>>) CallPolicy.stats().get("operations")) {
+            if (operation.equals(entry.get("operation"))) {
+                return entry.get(field);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,83 @@
+package com.traxion.time;
+
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Comparación de {@link Timestamps} contra la función DataWeave {@code toDate}.
+ *
+ * {@code dataWeaveToDate} reproduce en Java lo que hace el script (substrings,
+ * concatenación y coerción de la cadena ISO); no incluye el costo del intérprete de
+ * DataWeave, así que la diferencia real en el flujo es mayor. Los valores se toman de
+ * un conjunto con fechas repetidas, como las caducidades de un snapshot.
+ *
+ * <pre>
+ * java -cp target/test-classes:&lt;classpath de test&gt; org.openjdk.jmh.Main TimestampsBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimestampsBenchmark {
+
+    /** Fechas distintas en el conjunto de prueba. */
+    @Param({"16", "4096"})
+    public int distinct;
+
+    private String[] values;
+    private ZoneRules utc;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42L);
+        String[] pool = new String[distinct];
+        for (int i = 0; i < distinct; i++) {
+            pool[i] = String.format("%04d%02d%02d%02d%02d%02d", 2024 + random.nextInt(5), 1 + random.nextInt(12),
+                    1 + random.nextInt(28), random.nextInt(24), random.nextInt(60), random.nextInt(60));
+        }
+        values = new String[8192];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = pool[random.nextInt(distinct)];
+        }
+        utc = ZoneId.of("UTC").getRules();
+    }
+
+    private String nextValue() {
+        next = (next + 1) & (values.length - 1);
+        return values[next];
+    }
+
+    @Benchmark
+    public void cached(Blackhole blackhole) {
+        blackhole.consume(Timestamps.toEpochMillis(nextValue(), "UTC"));
+    }
+
+    @Benchmark
+    public void uncached(Blackhole blackhole) {
+        blackhole.consume(Timestamps.parse(nextValue(), utc));
+    }
+
+    @Benchmark
+    public void dataWeaveToDate(Blackhole blackhole) {
+        blackhole.consume(TimestampsTest.reference(nextValue(), "UTC"));
+    }
+}
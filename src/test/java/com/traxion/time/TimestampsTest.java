@@ -0,0 +1,112 @@
+package com.traxion.time;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Paridad de {@link Timestamps} con la función DataWeave {@code toDate} que reemplaza:
+ *
+ * <pre>
+ * fun toDate(aString) = aString[0 to 3] ++ "-" ++ aString[4 to 5] ++ "-" ++ aString[6 to 7] ++ "T"
+ *     ++ aString[8 to 9] ++ ":" ++ aString[10 to 11] ++ ":" ++ aString[12 to 13]
+ * toDate(x) as DateTime as Number {unit: "milliseconds"}
+ * </pre>
+ *
+ * La referencia arma la misma cadena ISO por substrings y la interpreta con java.time
+ * en la zona indicada, como hace DataWeave con la zona del runtime.
+ */
+public class TimestampsTest {
+
+    private static final String[] ZONES = {"UTC", "America/Mexico_City", "-06:00"};
+
+    @Test
+    public void matchesDataWeaveToDateOnRandomDates() {
+        Random random = new Random(20240229L);
+        for (String zone : ZONES) {
+            for (int i = 0; i < 20000; i++) {
+                LocalDateTime date = LocalDateTime.of(1990, 1, 1, 0, 0)
+                        .plusSeconds((long) (random.nextDouble() * 60L * 365 * 24 * 3600));
+                String compact = compact(date);
+                assertEquals(compact + " " + zone, reference(compact, zone),
+                        Timestamps.toEpochMillis(compact, zone).longValue());
+            }
+        }
+    }
+
+    @Test
+    public void matchesDataWeaveToDateOnCalendarEdges() {
+        String[] values = {
+                "19700101000000", "20000229235959", "20240229120000", "21000301000000",
+                "20221030010000", "20220403020000", "20221231235959", "99991231235959"
+        };
+        for (String zone : ZONES) {
+            for (String value : values) {
+                assertEquals(value + " " + zone, reference(value, zone), Timestamps.toEpochMillis(value, zone).longValue());
+            }
+        }
+    }
+
+    @Test
+    public void defaultsToUtc() {
+        assertEquals(Long.valueOf(1709208000000L), Timestamps.toEpochMillis("20240229120000"));
+        assertEquals(Long.valueOf(1709208000000L), Timestamps.toEpochMillis("20240229120000", null));
+        assertEquals(Long.valueOf(1709208000000L), Timestamps.toEpochMillis("20240229120000", " "));
+    }
+
+    @Test
+    public void ignoresCharactersAfterPosition14() {
+        assertEquals(Timestamps.toEpochMillis("20240229120000"), Timestamps.toEpochMillis("20240229120000.000"));
+    }
+
+    @Test
+    public void cachedValueIsPerZone() {
+        Long utc = Timestamps.toEpochMillis("20230615080000", "UTC");
+        Long mexico = Timestamps.toEpochMillis("20230615080000", "-06:00");
+        assertEquals(6L * 3600 * 1000, mexico - utc);
+        assertEquals(utc, Timestamps.toEpochMillis("20230615080000", "UTC"));
+    }
+
+    @Test
+    public void emptyValuesAreNull() {
+        assertNull(Timestamps.toEpochMillis(null, "UTC"));
+        assertNull(Timestamps.toEpochMillis("", "UTC"));
+    }
+
+    @Test
+    public void rejectsInvalidValues() {
+        String[] values = {"2024022912000", "2024-02-29T12", "20230229120000", "20241301000000",
+                "20240100000000", "20240101240000", "20240101006000", "20240101000060"};
+        for (String value : values) {
+            try {
+                Timestamps.toEpochMillis(value, "UTC");
+                fail("Se esperaba error para " + value);
+            } catch (IllegalArgumentException expected) {
+                // esperado
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownZone() {
+        Timestamps.toEpochMillis("20240229120000", "Mars/Olympus");
+    }
+
+    private static String compact(LocalDateTime date) {
+        return String.format("%04d%02d%02d%02d%02d%02d", date.getYear(), date.getMonthValue(),
+                date.getDayOfMonth(), date.getHour(), date.getMinute(), date.getSecond());
+    }
+
+    /** Traducción literal de {@code toDate(x) as DateTime as Number {unit: "milliseconds"}}. */
+    static long reference(String value, String zone) {
+        String iso = value.substring(0, 4) + "-" + value.substring(4, 6) + "-" + value.substring(6, 8) + "T"
+                + value.substring(8, 10) + ":" + value.substring(10, 12) + ":" + value.substring(12, 14);
+        return LocalDateTime.parse(iso).atZone(ZoneId.of(zone)).toInstant().toEpochMilli();
+    }
+}
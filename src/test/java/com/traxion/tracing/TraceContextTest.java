@@ -0,0 +1,95 @@
+package com.traxion.tracing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Propagación de {@code traceparent} y spans exportados por {@link TraceContext}.
+ */
+public class TraceContextTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String PARENT = "00-" + TRACE_ID + "-00f067aa0ba902b7-01";
+
+    @Test
+    public void continuesTheIncomingTrace() {
+        Map<String, Object> span = TraceContext.begin(PARENT, "vendor=1", 0.0);
+        assertEquals(TRACE_ID, span.get("traceId"));
+        assertEquals("00f067aa0ba902b7", span.get("parentSpanId"));
+        assertEquals(Boolean.TRUE, span.get("sampled"));
+        assertEquals("vendor=1", span.get("tracestate"));
+        String traceparent = (String) span.get("traceparent");
+        assertTrue(traceparent, traceparent.matches("00-" + TRACE_ID + "-[0-9a-f]{16}-01"));
+        assertNotEquals("00f067aa0ba902b7", span.get("spanId"));
+
+        Map<String, Object> notSampled = TraceContext.begin("00-" + TRACE_ID + "-00f067aa0ba902b7-00", null, 1.0);
+        assertEquals(Boolean.FALSE, notSampled.get("sampled"));
+        assertTrue(((String) notSampled.get("traceparent")).endsWith("-00"));
+    }
+
+    @Test
+    public void invalidHeaderStartsANewTrace() {
+        String[] invalid = {
+            "garbage",
+            "00-" + TRACE_ID + "-00f067aa0ba902b7",
+            "00-00000000000000000000000000000000-00f067aa0ba902b7-01",
+            "00-" + TRACE_ID + "-0000000000000000-01",
+            "ff-" + TRACE_ID + "-00f067aa0ba902b7-01",
+            "00-" + TRACE_ID + "-00f067aa0ba902b7-01-extra",
+            "00-" + TRACE_ID.toUpperCase().replace('A', 'G') + "-00f067aa0ba902b7-01"
+        };
+        for (String header : invalid) {
+            Map<String, Object> span = TraceContext.begin(header, "vendor=1", 1.0);
+            assertNotEquals(header, TRACE_ID, span.get("traceId"));
+            assertNull(header, span.get("parentSpanId"));
+            // El tracestate solo se conserva si continúa la traza recibida
+            assertNull(header, span.get("tracestate"));
+        }
+        assertEquals(Boolean.FALSE, TraceContext.begin(null, null, 0.0).get("sampled"));
+        assertEquals(Boolean.TRUE, TraceContext.begin(null, null, 1.0).get("sampled"));
+    }
+
+    @Test
+    public void childKeepsTheTraceAndPointsToItsParent() {
+        Map<String, Object> parent = TraceContext.begin(PARENT, null, 1.0);
+        Map<String, Object> child = TraceContext.child(parent);
+        assertEquals(TRACE_ID, child.get("traceId"));
+        assertEquals(parent.get("spanId"), child.get("parentSpanId"));
+        assertEquals(Boolean.TRUE, child.get("sampled"));
+        assertNull(TraceContext.child(null));
+        assertNull(TraceContext.child(Collections.<String, Object>emptyMap()));
+    }
+
+    @Test
+    public void onlySampledSpansAreExported() {
+        String traceId = "0af7651916cd43dd8448eb211c80319c";
+        Map<String, Object> server = TraceContext.begin("00-" + traceId + "-b7ad6b7169203331-01", null, 1.0);
+        Map<String, Object> client = TraceContext.child(server);
+        assertTrue(TraceContext.end(client, "POST /api/crm/siam", "client",
+                Collections.<String, Object>singletonMap("http.status_code", 200)));
+        assertTrue(TraceContext.end(server, "POST /salesforce/siam", TraceContext.SERVER, null));
+
+        Map<String, Object> unsampled = TraceContext.begin("00-" + traceId + "-b7ad6b7169203331-00", null, 1.0);
+        assertFalse(TraceContext.end(unsampled, "ignored", TraceContext.SERVER, null));
+        assertFalse(TraceContext.end(null, "ignored", TraceContext.SERVER, null));
+
+        List<Map<String, Object>> spans = TraceContext.recent(traceId);
+        assertEquals(2, spans.size());
+        Map<String, Object> exported = spans.get(0);
+        assertEquals(client.get("spanId"), exported.get("span_id"));
+        assertEquals(server.get("spanId"), exported.get("parent_span_id"));
+        assertEquals(TraceContext.CLIENT, exported.get("kind"));
+        assertEquals(200, ((Map<?, ?>) exported.get("attributes")).get("http.status_code"));
+        assertTrue((Long) exported.get("end_time_unix_nano") >= (Long) exported.get("start_time_unix_nano"));
+        assertEquals(TraceContext.SERVER, spans.get(1).get("kind"));
+    }
+}
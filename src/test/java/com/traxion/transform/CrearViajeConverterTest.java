@@ -0,0 +1,107 @@
+package com.traxion.transform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.traxion.json.JsonValues;
+
+/**
+ * Salida de {@link CrearViajeConverter} frente a las reglas del Transform Message de
+ * {@code orchestrator-create-order-convert-json-request}.
+ *
+ * Los JSON esperados se escribieron a partir de las reglas del selector de DataWeave
+ * (primer elemento con el nombre, vacío como null, {@code .*x map} sin elementos como
+ * null); no son salida capturada del flujo, por eso
+ * {@code java.transformer.crear.viaje.enabled} sigue apagada. Se compara el contenido
+ * y no el orden de las llaves, que cambia cuando faltan campos antes de {@code Paradas}.
+ */
+public class CrearViajeConverterTest {
+
+    private static final String FECHA_FIN_PLAN = "2024-03-01T10:15:30";
+
+    private static final String NULL_TRIP = "{\"fechaViaje\":null,\"fechaInicioPlan\":null,\"fechaArribo\":null,"
+            + "\"fechaFinPlan\":\"" + FECHA_FIN_PLAN + "\",\"referencia\":null,\"descripcion\":null,\"sucursal\":null,"
+            + "\"operacion\":null,\"empresa\":null,\"tipoViaje\":null,\"refCliente\":null,\"razonSocialCliente\":null,"
+            + "\"depositoSalida\":null,\"depositoLlegada\":null,\"paradas\":null}";
+
+    @Test
+    public void convertsTripStopsAndItems() {
+        String soap = envelope("<tem:crearviaje>"
+                + "<tem:FechaViaje>2024-03-01</tem:FechaViaje><tem:Referencia>V-100</tem:Referencia>"
+                + "<tem:Referencia>V-200</tem:Referencia><tem:Descripcion>  </tem:Descripcion>"
+                + "<tem:cliente><tem:RefCliente>IMSS</tem:RefCliente><tem:RazonSocial>IMSS B</tem:RazonSocial></tem:cliente>"
+                + "<tem:depositoSalida><tem:RefDepositoExterno>CEDIS-1</tem:RefDepositoExterno></tem:depositoSalida>"
+                + "<tem:Paradas><tem:pParada><tem:Secuencia>1</tem:Secuencia>"
+                + "<tem:cliente><tem:RefDomicilioExterno>D-9</tem:RefDomicilioExterno></tem:cliente>"
+                + "<tem:Items><tem:pParadaItem><tem:Cantidad>10</tem:Cantidad><tem:Varchar1>LOTE-7</tem:Varchar1>"
+                + "</tem:pParadaItem></tem:Items></tem:pParada></tem:Paradas></tem:crearviaje>");
+
+        assertJson("{\"fechaViaje\":\"2024-03-01\",\"fechaInicioPlan\":null,\"fechaArribo\":null,"
+                + "\"fechaFinPlan\":\"" + FECHA_FIN_PLAN + "\",\"referencia\":\"V-100\",\"descripcion\":null,"
+                + "\"sucursal\":null,\"operacion\":null,\"empresa\":null,\"tipoViaje\":null,\"refCliente\":\"IMSS\","
+                + "\"razonSocialCliente\":\"IMSS B\",\"depositoSalida\":\"CEDIS-1\",\"depositoLlegada\":null,"
+                + "\"paradas\":[{\"secuencia\":\"1\",\"refDocumento\":null,\"refDocumentoAdicional\":null,"
+                + "\"tipoParada\":null,\"inicioHorarioPlanificado\":null,\"finHorarioPlanificado\":null,"
+                + "\"refCliente\":\"IMSS BIENESTAR\",\"refDomicilioExternoCliente\":\"D-9\","
+                + "\"domicilioDescripcionCliente\":null,\"items\":[{\"refDocumento\":null,"
+                + "\"refDocumentoAdicional\":null,\"descripcion\":null,\"cantidad\":\"10\",\"volumen\":null,"
+                + "\"peso\":null,\"pallets\":null,\"productoLinea\":null,\"apilablePermitido\":null,"
+                + "\"embalaje\":null,\"fechaCaducidad\":null,\"lote\":\"LOTE-7\"}]}]}", convert(soap));
+    }
+
+    @Test
+    public void listsWithoutElementsAreNull() {
+        assertJson(NULL_TRIP, convert(envelope("<tem:crearviaje><tem:Paradas/></tem:crearviaje>")));
+        assertJson(NULL_TRIP, convert(envelope("<tem:crearviaje><tem:Paradas><tem:otro/></tem:Paradas>"
+                + "</tem:crearviaje>")));
+
+        Map<?, ?> trip = (Map<?, ?>) parse(convert(envelope("<tem:crearviaje><tem:Paradas><tem:pParada>"
+                + "<tem:Items> </tem:Items></tem:pParada></tem:Paradas></tem:crearviaje>")));
+        Map<?, ?> stop = (Map<?, ?>) ((List<?>) trip.get("paradas")).get(0);
+        assertTrue(stop.containsKey("items"));
+        assertNull(stop.get("items"));
+    }
+
+    @Test
+    public void tripOutsideTheEnvelopeBodyIsIgnored() {
+        String trip = "<tem:CrearViajeCompleto><tem:crearviaje><tem:Referencia>V-1</tem:Referencia>"
+                + "</tem:crearviaje></tem:CrearViajeCompleto>";
+        assertJson(NULL_TRIP, convert("<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\""
+                + " xmlns:tem=\"http://tempuri.org/\"><soapenv:Header>" + trip + "</soapenv:Header>"
+                + "<soapenv:Body/></soapenv:Envelope>"));
+        assertJson(NULL_TRIP, convert("<tem:Otro xmlns:tem=\"http://tempuri.org/\"><tem:Body>" + trip
+                + "</tem:Body></tem:Otro>"));
+    }
+
+    private static String envelope(String trip) {
+        return "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\""
+                + " xmlns:tem=\"http://tempuri.org/\"><soapenv:Header/><soapenv:Body><tem:CrearViajeCompleto>"
+                + trip + "</tem:CrearViajeCompleto></soapenv:Body></soapenv:Envelope>";
+    }
+
+    private static byte[] convert(String soap) {
+        return CrearViajeConverter.convert(soap, FECHA_FIN_PLAN);
+    }
+
+    private static void assertJson(String expected, byte[] actual) {
+        assertEquals(parse(expected), parse(actual));
+    }
+
+    private static Object parse(Object json) {
+        try (JsonParser parser = JsonValues.parser(json)) {
+            parser.nextToken();
+            return JsonValues.read(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.traxion.transform;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.traxion.json.JsonValues;
+
+/**
+ * Throughput de {@link OrderEventTransformer} contra un mapeo con la forma del script
+ * DataWeave.
+ *
+ * {@code treeMapping} hace lo mismo que Transform Message2: carga el documento completo,
+ * recorre {@code flatten([order_details])} dos veces, llama a {@code now()} dos veces y
+ * arma el árbol de salida antes de escribirlo. No incluye el costo del intérprete de
+ * DataWeave, así que la diferencia real en el flujo es mayor.
+ *
+ * <pre>
+ * java -cp target/test-classes:&lt;classpath de test&gt; org.openjdk.jmh.Main OrderEventTransformerBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderEventTransformerBenchmark {
+
+    /** Renglones en order_details. */
+    @Param({"1", "50", "1000"})
+    public int details;
+
+    private byte[] input;
+
+    @Setup
+    public void setUp() {
+        StringBuilder json = new StringBuilder(256 + details * 320)
+                .append("{\"order_status_change\":{\"TRACKING_ID\":\"REM-000981\",\"STATUS\":\"DISPATCH\",")
+                .append("\"EVENT_TIMESTAMP\":\"2024-03-01T10:15:30Z\",\"USER\":\"jperez\",\"LOAD_ID\":\"L-77812\",")
+                .append("\"ORIGIN_WAREHOUSE\":\"CEDIS\",\"order_details\":[");
+        for (int i = 0; i < details; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"PRODUCT_NUMBER\":\"75010").append(1000000 + i).append("\",\"LOT_NUMBER\":\"LT-").append(i)
+                    .append("\",\"EXPIRATION_DATE\":\"20251231000000\",\"QUANTITY\":").append(i % 200)
+                    .append(",\"VOLUME\":0.85,\"WEIGHT\":12.50,\"BULK\":3,\"PARCEL\":0,\"EXPECTED_QUANTITY\":")
+                    .append(i % 200).append(",\"MATERIAL_TYPE\":\"MED\",\"CONDITION_TYPE\":\"OK\"}");
+        }
+        input = json.append("]}}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] streaming() {
+        return OrderEventTransformer.transform(input);
+    }
+
+    @Benchmark
+    public byte[] treeMapping() throws IOException {
+        Map<?, ?> change;
+        try (JsonParser parser = JsonValues.parser(input)) {
+            parser.nextToken();
+            change = (Map<?, ?>) ((Map<?, ?>) JsonValues.read(parser)).get("order_status_change");
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("tracking_id", change.get("TRACKING_ID"));
+        payload.put("event", change.get("STATUS"));
+        payload.put("event_timestamp", OrderEventTransformer.toEpochMillis(change.get("EVENT_TIMESTAMP")));
+        payload.put("event_note", null);
+        Map<String, Object> author = new LinkedHashMap<>();
+        author.put("id", "");
+        author.put("name", change.get("USER"));
+        author.put("type", "");
+        author.put("email", "");
+        payload.put("author", author);
+
+        List<Map<String, Object>> lotes = new ArrayList<>();
+        for (Object item : flatten(change.get("order_details"))) {
+            Map<?, ?> detail = item instanceof Map ? (Map<?, ?>) item : Collections.emptyMap();
+            Map<String, Object> lote = new LinkedHashMap<>();
+            lote.put("item_id", detail.get("PRODUCT_NUMBER"));
+            lote.put("lote_id", detail.get("LOT_NUMBER"));
+            lote.put("accepted_quantity", detail.get("QUANTITY"));
+            lotes.add(lote);
+        }
+        List<Map<String, Object>> orderDetails = new ArrayList<>();
+        for (Object item : flatten(change.get("order_details"))) {
+            Map<?, ?> detail = item instanceof Map ? (Map<?, ?>) item : Collections.emptyMap();
+            Map<String, Object> ord = new LinkedHashMap<>();
+            ord.put("product_number", detail.get("PRODUCT_NUMBER"));
+            ord.put("volume", detail.get("VOLUME"));
+            ord.put("weight", detail.get("WEIGHT"));
+            ord.put("bulk", detail.get("BULK"));
+            ord.put("parcel", detail.get("PARCEL"));
+            ord.put("lot_number", detail.get("LOT_NUMBER"));
+            ord.put("quantity", detail.get("QUANTITY"));
+            ord.put("expected_quantity", detail.get("EXPECTED_QUANTITY"));
+            ord.put("material_type", detail.get("MATERIAL_TYPE"));
+            ord.put("condition_type", detail.get("CONDITION_TYPE"));
+            orderDetails.add(ord);
+        }
+        Map<String, Object> context = new LinkedHashMap<>();
+        context.put("lotes", lotes);
+        context.put("order_details", orderDetails);
+        context.put("delivery_id", change.get("LOAD_ID"));
+
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("payload", payload);
+        event.put("event", change.get("STATUS"));
+        event.put("publish_at", System.currentTimeMillis());
+        event.put("project", "PISA");
+        event.put("company", "PISA");
+        event.put("origin_platform", "WMS");
+        event.put("origin_timestamp", System.currentTimeMillis());
+        event.put("order_type", "REMISSION_PISA");
+        event.put("context", context);
+        event.put("version", "1");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(2048);
+        try (JsonGenerator generator = JsonValues.FACTORY.createGenerator(out)) {
+            JsonValues.write(generator, event);
+        }
+        return out.toByteArray();
+    }
+
+    private static List<?> flatten(Object details) {
+        return details instanceof List ? new ArrayList<>((List<?>) details) : Collections.singletonList(details);
+    }
+}
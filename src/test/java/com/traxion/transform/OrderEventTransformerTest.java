@@ -0,0 +1,125 @@
+package com.traxion.transform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.traxion.json.JsonValues;
+
+/**
+ * Equivalencia de {@link OrderEventTransformer} con el Transform Message2 de
+ * {@code orchestrator-kafka-wmsby-to-oms-operations-order-events}.
+ *
+ * Cada caso en {@code src/test/resources/golden/order-events} tiene la entrada de WMS
+ * ({@code .input.json}) y la salida de DataWeave ({@code .expected.json}). Las salidas
+ * actuales se escribieron a mano leyendo el script; antes de activar
+ * {@code java.transformer.order.events.enabled} hay que reemplazarlas por la salida
+ * capturada de una ejecución del flujo con DataWeave. Los campos
+ * que dependen de {@code now()} se escriben como {@code "<now>"} en el archivo esperado
+ * y se validan aparte. La comparación es sobre el JSON compacto, así que también
+ * valida el orden de los campos.
+ */
+@RunWith(Parameterized.class)
+public class OrderEventTransformerTest {
+
+    private static final String GOLDEN_DIR = "golden/order-events/";
+    private static final String NOW = "<now>";
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> cases() {
+        return Arrays.asList(new Object[][] {
+                {"multiple-details"},
+                {"single-detail-object"},
+                {"missing-details"},
+                {"epoch-seconds-timestamp"}
+        });
+    }
+
+    private final String name;
+
+    public OrderEventTransformerTest(String name) {
+        this.name = name;
+    }
+
+    @Test
+    public void matchesDataWeaveOutput() throws IOException {
+        byte[] input = resource(name + ".input.json");
+        long before = System.currentTimeMillis();
+        byte[] output = OrderEventTransformer.transform(input);
+        long after = System.currentTimeMillis();
+
+        Map<String, Object> actual = read(output);
+        Object publishAt = actual.get("publish_at");
+        assertTrue("publish_at " + publishAt, ((Number) publishAt).longValue() >= before
+                && ((Number) publishAt).longValue() <= after);
+        assertEquals("publish_at y origin_timestamp comparten now()", publishAt, actual.get("origin_timestamp"));
+        actual.put("publish_at", NOW);
+        actual.put("origin_timestamp", NOW);
+
+        assertEquals(compact(read(resource(name + ".expected.json"))), compact(actual));
+    }
+
+    @Test
+    public void acceptsEveryPayloadRepresentation() throws IOException {
+        byte[] input = resource(name + ".input.json");
+        Map<String, Object> fromBytes = withoutNow(read(OrderEventTransformer.transform(input)));
+        Map<String, Object> fromText = withoutNow(read(OrderEventTransformer.transform(
+                new String(input, StandardCharsets.UTF_8))));
+        Map<String, Object> fromStream = withoutNow(read(OrderEventTransformer.transform(
+                new ByteArrayInputStream(input))));
+        assertEquals(compact(fromBytes), compact(fromText));
+        assertEquals(compact(fromBytes), compact(fromStream));
+    }
+
+    private static Map<String, Object> withoutNow(Map<String, Object> event) {
+        event.put("publish_at", NOW);
+        event.put("origin_timestamp", NOW);
+        return event;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> read(byte[] json) throws IOException {
+        try (JsonParser parser = JsonValues.parser(json)) {
+            parser.nextToken();
+            return (Map<String, Object>) JsonValues.read(parser);
+        }
+    }
+
+    private static String compact(Object value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = JsonValues.FACTORY.createGenerator(out)) {
+            JsonValues.write(generator, value);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    static byte[] resource(String file) throws IOException {
+        try (InputStream in = OrderEventTransformerTest.class.getClassLoader().getResourceAsStream(GOLDEN_DIR + file)) {
+            if (in == null) {
+                throw new IOException("No existe el caso " + GOLDEN_DIR + file);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.traxion.validation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.traxion.json.JsonValues;
+
+/**
+ * Throughput de {@link CartaPorteValidator} contra una validación con la forma del flujo
+ * anterior.
+ *
+ * {@code treeValidation} hace lo mismo que el foreach con
+ * {@code validation:is-not-blank-string}: carga el documento completo, incluidas las
+ * ubicaciones que no se validan, y revisa operador por operador. No incluye el costo
+ * de los procesadores de Mule por cada elemento del foreach.
+ *
+ * <pre>
+ * java -cp target/test-classes:&lt;classpath de test&gt; org.openjdk.jmh.Main CartaPorteValidatorBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartaPorteValidatorBenchmark {
+
+    /** Renglones en ubicaciones y en mercancia. */
+    @Param({"10", "200", "2000"})
+    public int items;
+
+    private byte[] input;
+
+    @Setup
+    public void setUp() {
+        StringBuilder json = new StringBuilder(512 + items * 400)
+                .append("{\"folio\":\"CP-000981\",\"carta_porte\":{\"version\":\"3.0\",\"ubicaciones\":[");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"tipo_ubicacion\":\"Destino\",\"id_ubicacion\":\"DE").append(100000 + i)
+                    .append("\",\"rfc_remitente_destinatario\":\"XAXX010101000\",\"fecha_hora_salida_llegada\":")
+                    .append("\"2024-03-01T10:15:30\",\"distancia_recorrida\":").append(i % 500)
+                    .append(",\"domicilio\":{\"calle\":\"Av. Central\",\"codigo_postal\":\"06600\",\"estado\":\"CMX\"}}");
+        }
+        json.append("],\"mercancias\":{\"mercancia\":[");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"bienes_transp\":\"51121700\",\"descripcion\":\"Medicamento ").append(i)
+                    .append("\",\"clave_unidad\":\"H87\",\"cantidad\":").append(1 + i % 50)
+                    .append(",\"peso_en_kg\":12.5}");
+        }
+        json.append("]},\"figura_transporte\":{\"operadores\":[");
+        for (int i = 0; i < 3; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"rfc\":\"XAXX01010100").append(i).append("\",\"nombre\":\"Operador ").append(i)
+                    .append("\",\"licencia\":\"LIC-").append(i).append("\"}");
+        }
+        input = json.append("]}}}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> streaming() {
+        return CartaPorteValidator.validate(input, false);
+    }
+
+    @Benchmark
+    public List<String> treeValidation() throws IOException {
+        Map<?, ?> document;
+        try (JsonParser parser = JsonValues.parser(input)) {
+            parser.nextToken();
+            document = (Map<?, ?>) JsonValues.read(parser);
+        }
+        Map<?, ?> cartaPorte = (Map<?, ?>) document.get("carta_porte");
+        Map<?, ?> figura = (Map<?, ?>) cartaPorte.get("figura_transporte");
+        List<String> violations = new ArrayList<>();
+        for (Object item : (List<?>) figura.get("operadores")) {
+            Map<?, ?> operator = (Map<?, ?>) item;
+            for (String field : new String[] {"rfc", "nombre", "licencia"}) {
+                Object value = operator.get(field);
+                if (value == null || value.toString().trim().isEmpty()) {
+                    violations.add(field);
+                }
+            }
+        }
+        return violations;
+    }
+}
@@ -0,0 +1,108 @@
+package com.traxion.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Violaciones que reporta {@link CartaPorteValidator}.
+ *
+ * Los mensajes de operadores deben ser los mismos que tenían los
+ * {@code validation:is-not-blank-string} del flujo.
+ */
+public class CartaPorteValidatorTest {
+
+    private static final String VALID_OPERATOR = "{\"rfc\":\"XAXX010101000\",\"nombre\":\"Juan Perez\",\"licencia\":\"LIC-1\"}";
+    private static final String VALID_VEHICLE = "\"autotransporte\":{\"perm_sct\":\"TPAF01\",\"num_permiso_sct\":\"123\","
+            + "\"identificacion_vehicular\":{\"config_vehicular\":\"C2\",\"placa_vm\":\"ABC123\",\"anio_modelo_vm\":2020}}";
+    private static final String VALID_GOODS = "\"mercancias\":{\"mercancia\":[{\"bienes_transp\":\"51121700\","
+            + "\"descripcion\":\"Paracetamol\",\"clave_unidad\":\"H87\",\"cantidad\":10,\"peso_en_kg\":\"2.5\"}]}";
+
+    @Test
+    public void validDocumentHasNoViolations() {
+        String json = document("[" + VALID_OPERATOR + "]", VALID_VEHICLE + "," + VALID_GOODS);
+        assertEquals(0, CartaPorteValidator.validate(json, true).size());
+    }
+
+    @Test
+    public void reportsEveryOperatorViolation() {
+        String json = document("[" + VALID_OPERATOR + ",{\"rfc\":\" \",\"nombre\":null},{\"licencia\":\"L\"}]", null);
+        assertEquals(Arrays.asList(
+                "carta_porte.figura_transporte.operadores[1].rfc: rfc requerido para el operador",
+                "carta_porte.figura_transporte.operadores[1].nombre: nombre requerido para el operador",
+                "carta_porte.figura_transporte.operadores[1].licencia: licencia requerida para el operador",
+                "carta_porte.figura_transporte.operadores[2].rfc: rfc requerido para el operador",
+                "carta_porte.figura_transporte.operadores[2].nombre: nombre requerido para el operador"),
+                describe(CartaPorteValidator.validate(json, false)));
+    }
+
+    @Test
+    public void singleOperatorObjectCountsAsOneItem() {
+        String json = document("{\"rfc\":\"XAXX010101000\",\"nombre\":\"\",\"licencia\":\"LIC-1\"}", null);
+        assertEquals(Arrays.asList("carta_porte.figura_transporte.operadores[0].nombre: nombre requerido para el operador"),
+                describe(CartaPorteValidator.validate(json, false)));
+    }
+
+    @Test
+    public void extendedRulesOnlyApplyWhenEnabled() {
+        String goods = "\"mercancias\":{\"mercancia\":{\"bienes_transp\":\"51121700\",\"descripcion\":\"Paracetamol\","
+                + "\"clave_unidad\":\"H87\",\"cantidad\":0,\"peso_en_kg\":\"abc\"}}";
+        String json = document("[" + VALID_OPERATOR + "]", goods);
+        assertEquals(0, CartaPorteValidator.validate(json, false).size());
+        assertEquals(Arrays.asList(
+                "carta_porte.mercancias.mercancia[0].cantidad: cantidad mayor a cero requerida para la mercancia",
+                "carta_porte.mercancias.mercancia[0].peso_en_kg: peso en kg mayor a cero requerido para la mercancia"),
+                describe(CartaPorteValidator.validate(json, true)));
+    }
+
+    @Test
+    public void emptyGoodsAndIncompleteVehicle() {
+        String vehicle = "\"autotransporte\":{\"perm_sct\":\"TPAF01\",\"num_permiso_sct\":\"123\"}";
+        String json = document("[" + VALID_OPERATOR + "]", vehicle + ",\"mercancias\":{\"mercancia\":[]}");
+        List<String> violations = describe(CartaPorteValidator.validate(json, true));
+        assertEquals(4, violations.size());
+        assertTrue(violations.contains("carta_porte.mercancias.mercancia: se requiere al menos una mercancia"));
+        assertTrue(violations.contains(
+                "carta_porte.autotransporte.identificacion_vehicular.placa_vm: placa requerida para el vehiculo"));
+    }
+
+    @Test
+    public void acceptsEveryPayloadRepresentation() {
+        String json = document("[{\"rfc\":\"\"}]", null);
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        List<String> expected = describe(CartaPorteValidator.validate(json, false));
+        assertEquals(3, expected.size());
+        assertEquals(expected, describe(CartaPorteValidator.validate(bytes, false)));
+        assertEquals(expected, describe(CartaPorteValidator.validate(new ByteArrayInputStream(bytes), false)));
+    }
+
+    @Test
+    public void missingSectionsAreNotViolations() {
+        assertEquals(0, CartaPorteValidator.validate("{\"otro\":1}", true).size());
+        assertEquals(0, CartaPorteValidator.validate("[]", true).size());
+    }
+
+    /**
+     * Carta porte con los operadores dados y, si no es null, más secciones dentro de carta_porte.
+     */
+    static String document(String operators, String sections) {
+        return "{\"folio\":\"CP-1\",\"carta_porte\":{\"version\":\"3.0\",\"figura_transporte\":{\"operadores\":"
+                + operators + "}" + (sections == null ? "" : "," + sections) + "}}";
+    }
+
+    private static List<String> describe(List<Map<String, Object>> violations) {
+        List<String> result = new ArrayList<>();
+        for (Map<String, Object> violation : violations) {
+            result.add(violation.get("field") + ": " + violation.get("message"));
+        }
+        return result;
+    }
+}